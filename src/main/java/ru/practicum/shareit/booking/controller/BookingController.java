@@ -4,12 +4,21 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.CompactBookingDto;
 import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingView;
+import ru.practicum.shareit.util.pagination.Cursor;
+import ru.practicum.shareit.util.pagination.CursorPage;
+import ru.practicum.shareit.util.pagination.Paging;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.Positive;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -41,15 +50,88 @@ public class BookingController {
     public List<BookingDto> getAllByUser(@RequestHeader("X-Sharer-User-Id") long userId,
                                          @RequestParam(name = "state", defaultValue = "ALL") String state,
                                          @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
-                                         @RequestParam(defaultValue = "10", required = false) @Min(1L) int size) {
-        return bookingService.getAllByUser(userId, state, from, size);
+                                         @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+                                         @RequestParam(required = false) String after,
+                                         HttpServletResponse response) {
+        return getAll(userId, BookingRole.BOOKER, state, BookingView.FULL, Paging.of(from, after, size), response);
+    }
+
+    // id and name of the item instead of the whole item with its comments
+    @GetMapping(params = "view=compact")
+    public List<CompactBookingDto> getAllCompactByUser(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(name = "state", defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
+            @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) {
+        return getAll(userId, BookingRole.BOOKER, state, BookingView.COMPACT, Paging.of(from, after, size), response);
+    }
+
+    // only the selected fields, e.g. fields=start,end,item.name
+    @GetMapping(params = {"fields", "!view"})
+    public List<Map<String, Object>> getAllFieldsByUser(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(name = "state", defaultValue = "ALL") String state,
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
+            @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) {
+        return getAll(userId, BookingRole.BOOKER, state, BookingView.fields(fields),
+                Paging.of(from, after, size), response);
     }
 
     @GetMapping("/owner")
     public List<BookingDto> getAllByItemOwner(@RequestHeader("X-Sharer-User-Id") long userId,
                                               @RequestParam(name = "state", defaultValue = "ALL") String state,
                                               @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
-                                              @RequestParam(defaultValue = "10", required = false) @Min(1L) int size) {
-        return bookingService.getAllByItemOwner(userId, state, from, size);
+                                              @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+                                              @RequestParam(required = false) String after,
+                                              HttpServletResponse response) {
+        return getAll(userId, BookingRole.ITEM_OWNER, state, BookingView.FULL, Paging.of(from, after, size), response);
+    }
+
+    @GetMapping(path = "/owner", params = "view=compact")
+    public List<CompactBookingDto> getAllCompactByItemOwner(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(name = "state", defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
+            @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) {
+        return getAll(userId, BookingRole.ITEM_OWNER, state, BookingView.COMPACT,
+                Paging.of(from, after, size), response);
+    }
+
+    @GetMapping(path = "/owner", params = {"fields", "!view"})
+    public List<Map<String, Object>> getAllFieldsByItemOwner(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(name = "state", defaultValue = "ALL") String state,
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
+            @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) {
+        return getAll(userId, BookingRole.ITEM_OWNER, state, BookingView.fields(fields),
+                Paging.of(from, after, size), response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportByItemOwner(@RequestHeader("X-Sharer-User-Id") long userId,
+                                  @RequestParam(defaultValue = "ndjson") String format,
+                                  HttpServletResponse response) throws IOException {
+        BookingExportWriter writer = new BookingExportWriter(format, response);
+        bookingService.exportByItemOwner(userId, writer);
+        writer.finish();
+    }
+
+    private <T> List<T> getAll(long userId, BookingRole role, String state, BookingView<T> view, Paging paging,
+                               HttpServletResponse response) {
+        CursorPage<T> bookings = bookingService.getAll(userId, role, state, view, paging);
+        if (bookings.getNext() != null) {
+            response.setHeader(Cursor.NEXT_CURSOR_HEADER, bookings.getNext().encode());
+        }
+        return bookings.getContent();
     }
 }
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.booking.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpHeaders;
+import ru.practicum.shareit.booking.dto.BookingExportView;
+import ru.practicum.shareit.util.exception.ValidationException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes exported bookings straight to the response as they are read, so memory use does not depend on their number.
+ * Headers and the first bytes go out with the first booking, an error raised before it is answered as usual.
+ */
+class BookingExportWriter implements Consumer<BookingExportView> {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Format format;
+    private final HttpServletResponse response;
+    private Writer out;
+    private JsonGenerator json;
+
+    BookingExportWriter(String format, HttpServletResponse response) {
+        this.format = Format.from(format);
+        this.response = response;
+    }
+
+    @Override
+    public void accept(BookingExportView booking) {
+        try {
+            start();
+            if (format == Format.CSV) {
+                writeCsv(booking);
+            } else {
+                writeJson(booking);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void finish() throws IOException {
+        start();
+        if (json != null) {
+            json.flush();
+        }
+        out.flush();
+    }
+
+    private void start() throws IOException {
+        if (out != null) {
+            return;
+        }
+        response.setContentType(format.contentType);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"bookings." + format.extension + "\"");
+        out = response.getWriter();
+        if (format == Format.CSV) {
+            out.write("id,start,end,status,itemId,itemName,bookerId\r\n");
+        } else {
+            // lines are separated by hand, not by the default space between root values
+            json = JSON_FACTORY.createGenerator(out).setRootValueSeparator(null);
+        }
+    }
+
+    private void writeJson(BookingExportView booking) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", booking.getId());
+        json.writeStringField("start", booking.getStartDate().toString());
+        json.writeStringField("end", booking.getEndDate().toString());
+        json.writeStringField("status", booking.getStatus().toString());
+        json.writeNumberField("itemId", booking.getItemId());
+        json.writeStringField("itemName", booking.getItemName());
+        json.writeNumberField("bookerId", booking.getBookerId());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeCsv(BookingExportView booking) throws IOException {
+        out.write(booking.getId() + "," + booking.getStartDate() + "," + booking.getEndDate() + "," +
+                booking.getStatus() + "," + booking.getItemId() + "," + csvField(booking.getItemName()) + "," +
+                booking.getBookerId() + "\r\n");
+    }
+
+    // RFC 4180: a field with a separator, quote or line break is quoted, quotes inside it doubled
+    private static String csvField(String value) {
+        if (value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\r' || c == '\n')) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        static Format from(String format) {
+            for (Format value : values()) {
+                if (value.extension.equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new ValidationException("Unknown export format: " + format);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+public interface BookingExportView extends BookingPeriodView {
+    BookingStatus getStatus();
+
+    String getItemName();
+}
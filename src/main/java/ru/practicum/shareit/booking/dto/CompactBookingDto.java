@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+import ru.practicum.shareit.item.dto.ItemShortDto;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompactBookingDto {
+    private Long id;
+    private String start;
+    private String end;
+    private ItemShortDto item;
+    private Long bookerId;
+    private String status;
+}
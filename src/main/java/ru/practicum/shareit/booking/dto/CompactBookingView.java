@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+// selected column by column by a criteria query, see BookingSpecificationRepository#findCompactList
+@Value
+public class CompactBookingView {
+    Long id;
+    LocalDateTime startDate;
+    LocalDateTime endDate;
+    BookingStatus status;
+    Long itemId;
+    String itemName;
+    Long bookerId;
+}
@@ -4,8 +4,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.CompactBookingDto;
+import ru.practicum.shareit.booking.dto.CompactBookingView;
 import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.booking.dto.BookingShortView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
@@ -29,6 +33,17 @@ public class BookingMapper {
         return bookingDto;
     }
 
+    public CompactBookingDto toCompactBookingDto(CompactBookingView bookingView) {
+        CompactBookingDto bookingDto = new CompactBookingDto();
+        bookingDto.setId(bookingView.getId());
+        bookingDto.setStart(bookingView.getStartDate().toString());
+        bookingDto.setEnd(bookingView.getEndDate().toString());
+        bookingDto.setItem(new ItemShortDto(bookingView.getItemId(), bookingView.getItemName()));
+        bookingDto.setBookerId(bookingView.getBookerId());
+        bookingDto.setStatus(bookingView.getStatus().toString());
+        return bookingDto;
+    }
+
     public Booking toBooking(CreationBookingDto creationBookingDto) {
         Booking booking = new Booking();
         booking.setStart(LocalDateTime.parse(creationBookingDto.getStart()));
@@ -36,10 +51,10 @@ public class BookingMapper {
         return booking;
     }
 
-    public BookingShortDto toBookingShortDto(Booking booking) {
+    public BookingShortDto toBookingShortDto(BookingShortView bookingView) {
         BookingShortDto bookingShortDto = new BookingShortDto();
-        bookingShortDto.setId(booking.getId());
-        bookingShortDto.setBookerId(booking.getBooker().getId());
+        bookingShortDto.setId(bookingView.getId());
+        bookingShortDto.setBookerId(bookingView.getBookerId());
         return bookingShortDto;
     }
 }
@@ -0,0 +1,6 @@
+package ru.practicum.shareit.booking.model;
+
+// whose bookings a list shows: those the user made or those of the user's items
+public enum BookingRole {
+    BOOKER, ITEM_OWNER
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.model;
+
+import ru.practicum.shareit.util.exception.ValidationException;
+
+public enum BookingState {
+    ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED;
+
+    public static BookingState from(String state) {
+        if (state.isEmpty()) {
+            return ALL;
+        }
+        for (BookingState bookingState : values()) {
+            if (bookingState.name().equals(state)) {
+                return bookingState;
+            }
+        }
+        throw new ValidationException("Unknown state: UNSUPPORTED_STATUS");
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.util.fields.FieldSet;
+
+public final class BookingFields {
+    public static final FieldSet<Booking> FIELDS = new FieldSet<Booking>("id", "start")
+            .column("id", root -> root.get("id"))
+            .column("start", root -> root.get("start"))
+            .column("end", root -> root.get("end"))
+            .column("status", root -> root.get("status"))
+            .column("item.id", root -> root.get("item").get("id"))
+            .column("item.name", root -> root.get("item").get("name"))
+            .column("item.description", root -> root.get("item").get("description"))
+            .column("item.available", root -> root.get("item").get("available"))
+            .column("booker.id", root -> root.get("booker").get("id"))
+            .column("booker.name", root -> root.get("booker").get("name"))
+            .column("booker.email", root -> root.get("booker").get("email"));
+
+    private BookingFields() {
+    }
+}
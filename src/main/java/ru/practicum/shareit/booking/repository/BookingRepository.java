@@ -1,34 +1,99 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingExportView;
+import ru.practicum.shareit.booking.dto.BookingPeriodView;
+import ru.practicum.shareit.booking.dto.ItemBookingShortView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByBooker(User booker, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingSpecificationRepository {
+    @Override
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    Optional<Booking> findById(Long id);
 
-    // last booking
-    Optional<Booking> findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(Item item,
-                                                                              LocalDateTime currentTime,
-                                                                              BookingStatus status);
+    // last and nearest booking of one item in a single round trip, both halves are index lookups
+    @Query(value = "(SELECT b.item_id AS itemId, b.id AS id, b.booker_id AS bookerId, b.start_date AS startDate, " +
+            "        'LAST' AS kind " +
+            " FROM bookings b " +
+            " WHERE b.item_id = :itemId AND b.start_date < :currentTime AND b.status <> 'REJECTED' " +
+            " ORDER BY b.end_date DESC, b.id " +
+            " LIMIT 1) " +
+            "UNION ALL " +
+            "(SELECT b.item_id AS itemId, b.id AS id, b.booker_id AS bookerId, b.start_date AS startDate, " +
+            "        'NEXT' AS kind " +
+            " FROM bookings b " +
+            " WHERE b.item_id = :itemId AND b.start_date > :currentTime AND b.status <> 'REJECTED' " +
+            " ORDER BY b.start_date, b.id " +
+            " LIMIT 1)",
+            nativeQuery = true)
+    List<ItemBookingShortView> findLastAndNextByItemId(long itemId, LocalDateTime currentTime);
 
-    // nearest booking
-    Optional<Booking> findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(Item item,
-                                                                              LocalDateTime currentTime,
-                                                                              BookingStatus status);
+    // last and nearest booking of every item in one pass
+    @Query(value = "SELECT ranked.item_id AS itemId, ranked.id AS id, ranked.booker_id AS bookerId, " +
+            "       ranked.start_date AS startDate, ranked.kind AS kind " +
+            "FROM (SELECT b.item_id, b.id, b.booker_id, b.start_date, " +
+            "             CASE WHEN b.start_date < :currentTime THEN 'LAST' ELSE 'NEXT' END AS kind, " +
+            "             ROW_NUMBER() OVER (" +
+            "                 PARTITION BY b.item_id, CASE WHEN b.start_date < :currentTime THEN 'LAST' ELSE 'NEXT' END " +
+            "                 ORDER BY CASE WHEN b.start_date < :currentTime THEN b.end_date END DESC, " +
+            "                          CASE WHEN b.start_date > :currentTime THEN b.start_date END, " +
+            "                          b.id) AS position " +
+            "      FROM bookings b " +
+            "      WHERE b.item_id IN (:itemIds) " +
+            "        AND b.status <> 'REJECTED' " +
+            "        AND b.start_date <> :currentTime) ranked " +
+            "WHERE ranked.position = 1",
+            nativeQuery = true)
+    List<ItemBookingShortView> findLastAndNextByItemIds(Collection<Long> itemIds, LocalDateTime currentTime);
 
-    Optional<Booking> findFirstByBookerAndItemAndStatusAndEndBefore(User user,
-                                                                    Item item,
-                                                                    BookingStatus status,
-                                                                    LocalDateTime currentTime);
+    // any booking that still holds the item somewhere in [start, end)
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM bookings b " +
+            "WHERE b.item_id = :itemId AND b.end_date > :start AND b.start_date < :end " +
+            "AND b.status IN ('WAITING', 'APPROVED'))",
+            nativeQuery = true)
+    boolean existsOverlapping(long itemId, LocalDateTime start, LocalDateTime end);
 
-    List<Booking> findAllByItemOwner(User itemsOwner, Pageable pageable);
-}
+    // periods still holding items after the given time, used to build the availability index
+    @Query("SELECT b.item.id AS itemId, b.id AS id, b.booker.id AS bookerId, " +
+            "b.start AS startDate, b.end AS endDate " +
+            "FROM Booking b " +
+            "WHERE b.end > :currentTime AND b.status IN :statuses")
+    List<BookingPeriodView> findPeriodsEndingAfter(LocalDateTime currentTime, Collection<BookingStatus> statuses);
+
+    // items among the given ones held somewhere in [start, end), used when the availability index is off
+    @Query("SELECT DISTINCT b.item.id FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.end > :start AND b.start < :end AND b.status IN :statuses")
+    Set<Long> findItemIdsBookedBetween(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end,
+                                       Collection<BookingStatus> statuses);
 
+    // whole booking history of an owner, read through a cursor a batch of rows at a time; must be closed
+    @Query("SELECT b.id AS id, b.start AS startDate, b.end AS endDate, b.status AS status, " +
+            "i.id AS itemId, i.name AS itemName, b.booker.id AS bookerId " +
+            "FROM Booking b JOIN b.item i " +
+            "WHERE i.owner.id = :ownerId " +
+            "ORDER BY b.start DESC, b.id DESC")
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true")
+    })
+    Stream<BookingExportView> streamAllByItemOwnerId(long ownerId);
+
+    @Query("SELECT COUNT(b) > 0 FROM Booking b " +
+            "WHERE b.booker.id = :bookerId AND b.item.id = :itemId AND b.status = :status AND b.end < :currentTime")
+    boolean existsByBookerIdAndItemIdAndStatusAndEndBefore(long bookerId,
+                                                           long itemId,
+                                                           BookingStatus status,
+                                                           LocalDateTime currentTime);
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.CompactBookingView;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+
+public interface BookingSpecificationRepository {
+    // unlike JpaSpecificationExecutor#findAll(Specification, Pageable) does not issue a count query
+    List<Booking> findList(Specification<Booking> specification, Pageable pageable);
+
+    // only the columns of a compact list, the item is joined for its name but no entity is loaded
+    List<CompactBookingView> findCompactList(Specification<Booking> specification, Pageable pageable);
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.util.pagination.Cursor;
+
+import java.time.LocalDateTime;
+
+public final class BookingSpecifications {
+    private BookingSpecifications() {
+    }
+
+    public static Specification<Booking> hasBooker(long bookerId) {
+        return (root, query, builder) -> builder.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    public static Specification<Booking> hasItemOwner(long ownerId) {
+        return (root, query, builder) -> builder.equal(root.get("item").get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Booking> inState(BookingState state, LocalDateTime currentTime) {
+        switch (state) {
+            case CURRENT:
+                return (root, query, builder) -> builder.and(
+                        builder.lessThan(root.get("start"), currentTime),
+                        builder.greaterThan(root.get("end"), currentTime));
+            case PAST:
+                return (root, query, builder) -> builder.lessThan(root.get("end"), currentTime);
+            case FUTURE:
+                return (root, query, builder) -> builder.greaterThan(root.get("end"), currentTime);
+            case WAITING:
+                return hasStatus(BookingStatus.WAITING);
+            case REJECTED:
+                return hasStatus(BookingStatus.REJECTED);
+            default:
+                return (root, query, builder) -> builder.conjunction();
+        }
+    }
+
+    // rows following the cursor in (start, id) descending order
+    public static Specification<Booking> afterCursor(Cursor cursor) {
+        LocalDateTime start = cursor.getTimestampOrThrow();
+        return (root, query, builder) -> builder.or(
+                builder.lessThan(root.get("start"), start),
+                builder.and(
+                        builder.equal(root.get("start"), start),
+                        builder.lessThan(root.get("id"), cursor.getId())));
+    }
+
+    private static Specification<Booking> hasStatus(BookingStatus status) {
+        return (root, query, builder) -> builder.equal(root.get("status"), status);
+    }
+}
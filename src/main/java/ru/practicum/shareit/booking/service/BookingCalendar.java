@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Immutable interval index over the bookings holding one item.
+ * Periods are sorted by start and every position also keeps the latest end among the periods up to it,
+ * so an overlap check is a single binary search even when periods overlap each other.
+ * Changes return a new calendar, readers never lock.
+ */
+final class BookingCalendar {
+    static final BookingCalendar EMPTY = new BookingCalendar(List.of());
+
+    private static final Comparator<Period> BY_START = Comparator.comparing(Period::getStart)
+            .thenComparingLong(Period::getId);
+
+    private final Period[] periods;
+    private final LocalDateTime[] maxEnds;
+
+    private BookingCalendar(Collection<Period> periods) {
+        this.periods = periods.toArray(new Period[0]);
+        Arrays.sort(this.periods, BY_START);
+        this.maxEnds = new LocalDateTime[this.periods.length];
+        for (int i = 0; i < this.periods.length; i++) {
+            LocalDateTime end = this.periods[i].getEnd();
+            maxEnds[i] = i > 0 && maxEnds[i - 1].isAfter(end) ? maxEnds[i - 1] : end;
+        }
+    }
+
+    static BookingCalendar of(Collection<Period> periods) {
+        return periods.isEmpty() ? EMPTY : new BookingCalendar(periods);
+    }
+
+    // true when some period intersects [start, end)
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        int last = lastStartingBefore(end);
+        return last >= 0 && maxEnds[last].isAfter(start);
+    }
+
+    // periods that ended before the given time are dropped, nobody asks about them any more
+    BookingCalendar with(Period period, LocalDateTime endedBefore) {
+        List<Period> kept = new ArrayList<>(periods.length + 1);
+        for (Period existing : periods) {
+            if (existing.getId() != period.getId() && existing.getEnd().isAfter(endedBefore)) {
+                kept.add(existing);
+            }
+        }
+        kept.add(period);
+        return of(kept);
+    }
+
+    BookingCalendar without(Predicate<Period> filter) {
+        List<Period> kept = new ArrayList<>(periods.length);
+        for (Period existing : periods) {
+            if (!filter.test(existing)) {
+                kept.add(existing);
+            }
+        }
+        return kept.size() == periods.length ? this : of(kept);
+    }
+
+    boolean isEmpty() {
+        return periods.length == 0;
+    }
+
+    private int lastStartingBefore(LocalDateTime time) {
+        int low = 0;
+        int high = periods.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (periods[middle].getStart().isBefore(time)) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    @Value
+    static class Period {
+        long id;
+        long bookerId;
+        LocalDateTime start;
+        LocalDateTime end;
+    }
+}
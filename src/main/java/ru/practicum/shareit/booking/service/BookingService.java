@@ -1,9 +1,14 @@
 package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportView;
 import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.util.pagination.CursorPage;
+import ru.practicum.shareit.util.pagination.Paging;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDto create(long userId, CreationBookingDto creationBookingDto);
@@ -12,7 +17,9 @@ public interface BookingService {
 
     BookingDto getById(long userId, long bookingId);
 
-    List<BookingDto> getAllByUser(long userId, String state, int from, int size);
+    // bookings the user made or those of the user's items, newest first, in the given view
+    <T> CursorPage<T> getAll(long userId, BookingRole role, String state, BookingView<T> view, Paging paging);
 
-    List<BookingDto> getAllByItemOwner(long userId, String state, int from, int size);
+    // passes every booking of the owner's items to the action while reading them, newest first
+    void exportByItemOwner(long userId, Consumer<BookingExportView> action);
 }
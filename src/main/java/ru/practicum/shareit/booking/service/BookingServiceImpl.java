@@ -2,39 +2,75 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportView;
+import ru.practicum.shareit.booking.dto.CompactBookingDto;
+import ru.practicum.shareit.booking.dto.CompactBookingView;
 import ru.practicum.shareit.booking.dto.CreationBookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingFields;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdCache;
+import ru.practicum.shareit.util.etag.EtagCache;
+import ru.practicum.shareit.util.exception.ConflictException;
 import ru.practicum.shareit.util.exception.NoAccessException;
 import ru.practicum.shareit.util.exception.NotFoundException;
 import ru.practicum.shareit.util.exception.ValidationException;
+import ru.practicum.shareit.util.fields.FieldRepository;
+import ru.practicum.shareit.util.fields.FieldSet;
+import ru.practicum.shareit.util.pagination.Cursor;
+import ru.practicum.shareit.util.pagination.CursorPage;
+import ru.practicum.shareit.util.pagination.Paging;
 
+import javax.persistence.Tuple;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.springframework.data.jpa.domain.Specification.where;
 import static ru.practicum.shareit.booking.model.BookingStatus.WAITING;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.afterCursor;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.hasBooker;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.hasItemOwner;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.inState;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
+    // PostgreSQL only, see schema-postgresql.sql
+    private static final String PERIOD_CONSTRAINT = "bookings_item_id_period_excl";
+    private static final Sort BOOKING_ORDER = Sort.by(Sort.Direction.DESC, "start", "id");
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final UserIdCache userIdCache;
     private final ItemRepository itemRepository;
     private final BookingMapper bookingMapper;
+    private final ItemAvailabilityIndex availabilityIndex;
+    private final EtagCache etagCache;
+    private final FieldRepository fieldRepository;
 
     @Transactional
     @Override
@@ -42,7 +78,10 @@ public class BookingServiceImpl implements BookingService {
         User booker = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException(
                         "User with id " + userId + " does not exist"));
-        Item item = itemRepository.findById(creationBookingDto.getItemId())
+
+        Booking booking = bookingMapper.toBooking(creationBookingDto);
+
+        Item item = itemRepository.findByIdForUpdate(creationBookingDto.getItemId())
                 .orElseThrow(() -> new NotFoundException(
                         "Item with id " + creationBookingDto.getItemId() + " does not exist"));
 
@@ -52,13 +91,29 @@ public class BookingServiceImpl implements BookingService {
         if (item.getAvailable().equals(false)) {
             throw new ValidationException("Item is not available for booking");
         }
+        // decided by the database under the item lock, the in-memory index may miss other instances' bookings
+        if (bookingRepository.existsOverlapping(item.getId(), booking.getStart(), booking.getEnd())) {
+            throw new ConflictException("Item with id " + item.getId() + " is already booked for this period");
+        }
 
-        Booking booking = bookingMapper.toBooking(creationBookingDto);
         booking.setBooker(booker);
         booking.setItem(item);
         booking.setStatus(WAITING);
 
-        Booking bookingCreated = bookingRepository.save(booking);
+        Booking bookingCreated;
+        try {
+            // flushed here, so that the exclusion constraint of PostgreSQL is checked inside this method
+            bookingCreated = bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (String.valueOf(e.getMostSpecificCause().getMessage()).contains(PERIOD_CONSTRAINT)) {
+                throw new ConflictException("Item with id " + item.getId() + " is already booked for this period");
+            }
+            throw e;
+        }
+        availabilityIndex.add(item.getId(), bookingCreated.getId(), booker.getId(),
+                bookingCreated.getStart(), bookingCreated.getEnd());
+        // may be the next booking the owner sees on the item
+        etagCache.evict(ItemService.etagResource(item.getId()));
 
         log.info("Booking created: {}", bookingCreated);
         return bookingMapper.toBookingDto(bookingCreated);
@@ -69,14 +124,17 @@ public class BookingServiceImpl implements BookingService {
     public BookingDto confirmStatus(long ownerId, long bookingId, String flag) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Booking with id " + bookingId + " not found"));
-        User owner = userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("User with id " + ownerId + " not found"));
+        userIdCache.checkExists(ownerId);
 
         long itemOwnerId = booking.getItem().getOwner().getId();
 
-        if (owner.getId() == itemOwnerId) {
+        if (ownerId == itemOwnerId) {
             setStatusOrThrow(flag, booking);
             bookingRepository.save(booking);
+            if (booking.getStatus() == BookingStatus.REJECTED) {
+                availabilityIndex.remove(booking.getItem().getId(), booking.getId());
+                etagCache.evict(ItemService.etagResource(booking.getItem().getId()));
+            }
         } else {
             throw new NoAccessException("User with id " + ownerId + " is not owner of Item with id " + itemOwnerId);
         }
@@ -101,40 +159,44 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    // the view decides the type of the rows, so the page found for it is a page of T
+    @SuppressWarnings("unchecked")
     @Override
-    public List<BookingDto> getAllByUser(long userId, String state, int from, int size) {
-        User booker = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
+    public <T> CursorPage<T> getAll(long userId, BookingRole role, String state, BookingView<T> view, Paging paging) {
+        BookingState bookingState = checkUserAndParseState(userId, state);
 
-        Sort sort = Sort.sort(Booking.class).by(Booking::getStart).descending();
-        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, sort);
+        Specification<Booking> specification = role == BookingRole.BOOKER ? hasBooker(userId) : hasItemOwner(userId);
+        specification = where(specification).and(inState(bookingState, LocalDateTime.now()));
+        if (paging.hasCursor()) {
+            specification = specification.and(afterCursor(paging.getAfter()));
+        }
+        PageRequest pageRequest = paging.toPageRequest(BOOKING_ORDER);
 
-        List<Booking> bookings = filterBookingsByState(
-                bookingRepository.findAllByBooker(booker, pageRequest),
-                state);
+        CursorPage<?> bookings;
+        switch (view.getType()) {
+            case COMPACT:
+                bookings = findCompactBookings(specification, pageRequest);
+                break;
+            case FIELDS:
+                bookings = findBookingFields(specification, view.getFields(), pageRequest);
+                break;
+            default:
+                bookings = findBookings(specification, pageRequest);
+        }
 
-        log.info("Provided all Bookings by User");
-        return bookings.stream()
-                .map(bookingMapper::toBookingDto)
-                .collect(Collectors.toList());
+        log.info("Provided {} Bookings by {} with {}", view, role, paging);
+        return (CursorPage<T>) bookings;
     }
 
     @Override
-    public List<BookingDto> getAllByItemOwner(long userId, String state, int from, int size) {
-        User itemOwner = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
-
-        Sort sort = Sort.sort(Booking.class).by(Booking::getStart).descending();
-        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, sort);
+    public void exportByItemOwner(long userId, Consumer<BookingExportView> action) {
+        userIdCache.checkExists(userId, "User not found");
 
-        List<Booking> bookings = filterBookingsByState(
-                bookingRepository.findAllByItemOwner(itemOwner, pageRequest),
-                state);
-
-        log.info("Provided all Bookings by Item owner");
-        return bookings.stream()
-                .map(bookingMapper::toBookingDto)
-                .collect(Collectors.toList());
+        // projections, not entities: nothing piles up in the persistence context however long the history is
+        try (Stream<BookingExportView> bookings = bookingRepository.streamAllByItemOwnerId(userId)) {
+            bookings.forEach(action);
+        }
+        log.info("Exported all Bookings by Item owner {}", userId);
     }
 
     private void setStatusOrThrow(String flag, Booking booking) {
@@ -150,36 +212,45 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    private List<Booking> filterBookingsByState(List<Booking> bookings, String state) {
-        if (state.isEmpty()) {
-            return bookings;
-        }
-        switch (state) {
-            case "CURRENT":
-                return bookings.stream()
-                        .filter(booking -> LocalDateTime.now().isAfter(booking.getStart()) &&
-                                LocalDateTime.now().isBefore(booking.getEnd()))
-                        .collect(Collectors.toList());
-            case "PAST":
-                return bookings.stream()
-                        .filter(booking -> LocalDateTime.now().isAfter(booking.getEnd()))
-                        .collect(Collectors.toList());
-            case "FUTURE":
-                return bookings.stream()
-                        .filter(booking -> LocalDateTime.now().isBefore(booking.getStart()) || LocalDateTime.now().isBefore(booking.getEnd()))
-                        .collect(Collectors.toList());
-            case "WAITING":
-                return bookings.stream()
-                        .filter(booking -> booking.getStatus() == WAITING)
-                        .collect(Collectors.toList());
-            case "REJECTED":
-                return bookings.stream()
-                        .filter(booking -> booking.getStatus() == BookingStatus.REJECTED)
-                        .collect(Collectors.toList());
-            case "ALL":
-                return bookings;
-            default:
-                throw new ValidationException("Unknown state: UNSUPPORTED_STATUS");
-        }
+    private BookingState checkUserAndParseState(long userId, String state) {
+        userIdCache.checkExists(userId, "User not found");
+        return BookingState.from(state);
+    }
+
+    private CursorPage<BookingDto> findBookings(Specification<Booking> specification, PageRequest pageRequest) {
+        List<Booking> bookings = bookingRepository.findList(specification, pageRequest);
+        // items taken from the second-level cache would otherwise be initialized one by one while mapping,
+        // and the comments of each of them fetched by a separate query instead of a single batch
+        bookings.forEach(booking -> Hibernate.initialize(booking.getItem()));
+        return new CursorPage<>(bookings.stream()
+                .map(bookingMapper::toBookingDto)
+                .collect(Collectors.toList()),
+                nextCursor(bookings, pageRequest, booking -> Cursor.of(booking.getStart(), booking.getId())));
+    }
+
+    private CursorPage<CompactBookingDto> findCompactBookings(Specification<Booking> specification,
+                                                              PageRequest pageRequest) {
+        List<CompactBookingView> bookings = bookingRepository.findCompactList(specification, pageRequest);
+        return new CursorPage<>(bookings.stream()
+                .map(bookingMapper::toCompactBookingDto)
+                .collect(Collectors.toList()),
+                nextCursor(bookings, pageRequest, booking -> Cursor.of(booking.getStartDate(), booking.getId())));
+    }
+
+    private CursorPage<Map<String, Object>> findBookingFields(Specification<Booking> specification,
+                                                              String fields,
+                                                              PageRequest pageRequest) {
+        FieldSet<Booking>.Selection selection = BookingFields.FIELDS.select(fields);
+        List<Tuple> bookings = fieldRepository.findTuples(Booking.class, selection, specification, pageRequest);
+        int start = selection.indexOf("start");
+        int id = selection.indexOf("id");
+        return new CursorPage<>(FieldRepository.toRows(selection, bookings),
+                nextCursor(bookings, pageRequest,
+                        booking -> Cursor.of(booking.get(start, LocalDateTime.class), booking.get(id, Long.class))));
+    }
+
+    // only a full page may have a next one, it starts after the last row read
+    private static <R> Cursor nextCursor(List<R> rows, PageRequest pageRequest, Function<R, Cursor> position) {
+        return rows.size() == pageRequest.getPageSize() ? position.apply(rows.get(rows.size() - 1)) : null;
     }
 }
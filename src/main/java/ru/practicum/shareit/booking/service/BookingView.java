@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.CompactBookingDto;
+
+import java.util.Map;
+
+/**
+ * Rows of a booking list: whole bookings, compact ones or only the fields the client selected.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookingView<T> {
+    public static final BookingView<BookingDto> FULL = new BookingView<>(Type.FULL, null);
+    // id and name of the item instead of the whole item with its comments
+    public static final BookingView<CompactBookingDto> COMPACT = new BookingView<>(Type.COMPACT, null);
+
+    Type type;
+    String fields;
+
+    // only the selected fields, see BookingFields; id and start are always selected
+    public static BookingView<Map<String, Object>> fields(String fields) {
+        return new BookingView<>(Type.FIELDS, fields);
+    }
+
+    public enum Type {
+        FULL, COMPACT, FIELDS
+    }
+}
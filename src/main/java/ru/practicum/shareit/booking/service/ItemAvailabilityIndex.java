@@ -0,0 +1,185 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingPeriodView;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.util.datasource.ReplicaProperties;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Waiting and approved bookings of every item that have not ended yet, kept in memory
+ * so that free items are found without going to the database.
+ * Loaded when the application starts and changed only after the transaction that created, rejected
+ * or cascaded away a booking commits; changes committed during a reload are kept.
+ * Only bookings made through this instance are seen, so the index assumes a single instance:
+ * it is off with {@code shareit.availability-index.enabled=false} or a configured replica,
+ * and then the bookings are queried instead. Conflicts on creation are always decided by the database.
+ */
+@Slf4j
+@Service
+public class ItemAvailabilityIndex {
+    private static final List<BookingStatus> HOLDING_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final boolean enabled;
+    private final Object changeLock = new Object();
+    private volatile Map<Long, BookingCalendar> calendars = new ConcurrentHashMap<>();
+    // changes committed while reload() reads the bookings, replayed on the loaded map before it replaces the live one
+    private List<Consumer<Map<Long, BookingCalendar>>> changesDuringReload;
+
+    public ItemAvailabilityIndex(BookingRepository bookingRepository, ReplicaProperties replicaProperties,
+                                 @Value("${shareit.availability-index.enabled:true}") boolean enabled) {
+        this.bookingRepository = bookingRepository;
+        // a replica means the application is scaled out, other instances book items this one never hears of
+        this.enabled = enabled && !replicaProperties.isEnabled();
+        if (!this.enabled) {
+            log.info("Availability index is off, free items are looked up in the bookings table");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // read-write, so that the bookings come from the primary: a lagging replica would miss changes already applied
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (changeLock) {
+            changesDuringReload = new ArrayList<>();
+        }
+        try {
+            Map<Long, BookingCalendar> loaded = load();
+            synchronized (changeLock) {
+                changesDuringReload.forEach(change -> change.accept(loaded));
+                calendars = loaded;
+            }
+        } finally {
+            synchronized (changeLock) {
+                changesDuringReload = null;
+            }
+        }
+    }
+
+    private Map<Long, BookingCalendar> load() {
+        Map<Long, List<BookingCalendar.Period>> periods = new HashMap<>();
+        List<BookingPeriodView> views = bookingRepository.findPeriodsEndingAfter(LocalDateTime.now(),
+                HOLDING_STATUSES);
+        for (BookingPeriodView view : views) {
+            periods.computeIfAbsent(view.getItemId(), id -> new ArrayList<>())
+                    .add(new BookingCalendar.Period(view.getId(), view.getBookerId(),
+                            view.getStartDate(), view.getEndDate()));
+        }
+
+        Map<Long, BookingCalendar> loaded = new ConcurrentHashMap<>();
+        periods.forEach((itemId, itemPeriods) -> loaded.put(itemId, BookingCalendar.of(itemPeriods)));
+        log.info("Availability index loaded: {} bookings of {} items", views.size(), loaded.size());
+        return loaded;
+    }
+
+    public boolean isBooked(long itemId, LocalDateTime start, LocalDateTime end) {
+        BookingCalendar calendar = calendars.get(itemId);
+        return calendar != null && calendar.overlaps(start, end);
+    }
+
+    // ids of the given items held by a booking somewhere in [start, end)
+    public Set<Long> findBooked(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end) {
+        if (itemIds.isEmpty()) {
+            return Set.of();
+        }
+        if (!enabled) {
+            return bookingRepository.findItemIdsBookedBetween(itemIds, start, end, HOLDING_STATUSES);
+        }
+        return itemIds.stream()
+                .filter(itemId -> isBooked(itemId, start, end))
+                .collect(Collectors.toSet());
+    }
+
+    public void add(long itemId, long bookingId, long bookerId, LocalDateTime start, LocalDateTime end) {
+        BookingCalendar.Period period = new BookingCalendar.Period(bookingId, bookerId, start, end);
+        afterCommit(() -> change(map -> map.compute(itemId, (id, calendar) ->
+                (calendar == null ? BookingCalendar.EMPTY : calendar).with(period, LocalDateTime.now()))));
+    }
+
+    public void remove(long itemId, long bookingId) {
+        afterCommit(() -> change(map -> map.computeIfPresent(itemId, (id, calendar) ->
+                emptyToNull(calendar.without(period -> period.getId() == bookingId)))));
+    }
+
+    // items and bookings of a deleted user are removed by ON DELETE CASCADE, so their periods are released here
+    public void removeUser(long userId, Collection<Long> ownedItemIds) {
+        afterCommit(() -> change(map -> {
+            map.keySet().removeAll(ownedItemIds);
+            removeEach(map, period -> period.getBookerId() == userId);
+        }));
+    }
+
+    // calendars only drop ended periods when a booking is added, items nobody books any more are cleaned up here
+    @Scheduled(fixedDelayString = "${shareit.availability-index.prune-delay}",
+            initialDelayString = "${shareit.availability-index.prune-delay}")
+    public void prune() {
+        LocalDateTime now = LocalDateTime.now();
+        int before = calendars.size();
+        removeEach(calendars, period -> !period.getEnd().isAfter(now));
+        log.debug("Availability index pruned: {} of {} items left", calendars.size(), before);
+    }
+
+    // every change is safe to apply twice, so replaying one the loaded bookings already contain does no harm
+    private void change(Consumer<Map<Long, BookingCalendar>> change) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (changeLock) {
+            change.accept(calendars);
+            if (changesDuringReload != null) {
+                changesDuringReload.add(change);
+            }
+        }
+    }
+
+    private static void removeEach(Map<Long, BookingCalendar> calendars, Predicate<BookingCalendar.Period> filter) {
+        for (Long itemId : calendars.keySet()) {
+            calendars.computeIfPresent(itemId, (id, calendar) -> emptyToNull(calendar.without(filter)));
+        }
+    }
+
+    private static BookingCalendar emptyToNull(BookingCalendar calendar) {
+        return calendar.isEmpty() ? null : calendar;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,19 +1,33 @@
 package ru.practicum.shareit.item.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreationCommentDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.validation.group.AddNewItemAction;
 import ru.practicum.shareit.item.validation.group.UpdateItemAction;
+import ru.practicum.shareit.util.etag.ConditionalGet;
+import ru.practicum.shareit.util.json.JsonValues;
+import ru.practicum.shareit.util.pagination.Cursor;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.groups.Default;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/items")
@@ -21,6 +35,7 @@ import java.util.List;
 @Validated
 public class ItemController {
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto create(@RequestHeader("X-Sharer-User-Id") long ownerId,
@@ -28,10 +43,21 @@ public class ItemController {
         return itemService.create(ownerId, itemDto);
     }
 
+    // a JSON array or newline-delimited JSON, read item by item
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ItemBatchResultDto createAll(@RequestHeader("X-Sharer-User-Id") long ownerId,
+                                        HttpServletRequest request) throws IOException {
+        return itemService.createAll(ownerId,
+                JsonValues.iterate(objectMapper.readerFor(ItemDto.class), request.getInputStream()));
+    }
+
     @GetMapping("/{id}")
-    public ItemDto getById(@RequestHeader("X-Sharer-User-Id") long userId,
-                           @PathVariable long id) {
-        return itemService.getById(userId, id);
+    public ResponseEntity<ItemDto> getById(@RequestHeader("X-Sharer-User-Id") long userId,
+                                           @PathVariable long id,
+                                           WebRequest request) {
+        return ConditionalGet.respond(request,
+                () -> itemService.getEtag(userId, id),
+                () -> itemService.getById(userId, id));
     }
 
     @PatchMapping("/{id}")
@@ -44,8 +70,45 @@ public class ItemController {
     @GetMapping
     public List<ItemDto> getAllByOwnerId(@RequestHeader("X-Sharer-User-Id") long ownerId,
                                          @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
-                                         @RequestParam(defaultValue = "10", required = false) @Min(1L) int size) {
-        return itemService.getAllByOwnerId(ownerId, from, size);
+                                         @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+                                         @RequestParam(required = false) String after,
+                                         HttpServletResponse response) {
+        List<ItemDto> items = after == null
+                ? itemService.getAllByOwnerId(ownerId, from, size)
+                : itemService.getAllByOwnerId(ownerId, Cursor.decode(after), size);
+        if (items.size() == size) {
+            response.setHeader(Cursor.NEXT_CURSOR_HEADER, Cursor.of(items.get(size - 1).getId()).encode());
+        }
+        return items;
+    }
+
+    // only the selected fields, e.g. fields=name,comments
+    @GetMapping(params = "fields")
+    public List<Map<String, Object>> getAllFieldsByOwnerId(
+            @RequestHeader("X-Sharer-User-Id") long ownerId,
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
+            @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) {
+        List<Map<String, Object>> items = after == null
+                ? itemService.getAllFieldsByOwnerId(ownerId, fields, from, size)
+                : itemService.getAllFieldsByOwnerId(ownerId, fields, Cursor.decode(after), size);
+        if (items.size() == size) {
+            response.setHeader(Cursor.NEXT_CURSOR_HEADER, Cursor.of((Long) items.get(size - 1).get("id")).encode());
+        }
+        return items;
+    }
+
+    @GetMapping("/available")
+    public List<ItemDto> getAllFreeByOwnerId(@RequestHeader("X-Sharer-User-Id") long ownerId,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                             LocalDateTime start,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                             LocalDateTime end,
+                                             @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
+                                             @RequestParam(defaultValue = "10", required = false) @Min(1L) int size) {
+        return itemService.getAllFreeByOwnerId(ownerId, start, end, from, size);
     }
 
     @GetMapping("/search")
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ItemBatchResultDto {
+    private int created;
+    private int rejected;
+    private List<ItemBatchRowDto> rows;
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.mapper;
 
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.dto.CreationCommentDto;
 import ru.practicum.shareit.item.model.Comment;
 
@@ -21,4 +22,13 @@ public class CommentMapper {
         commentDto.setCreated(comment.getCreated().toString());
         return commentDto;
     }
+
+    public CommentDto toCommentDto(CommentView commentView) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(commentView.getId());
+        commentDto.setText(commentView.getText());
+        commentDto.setAuthorName(commentView.getAuthorName());
+        commentDto.setCreated(commentView.getCreated().toString());
+        return commentDto;
+    }
 }
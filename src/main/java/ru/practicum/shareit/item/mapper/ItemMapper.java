@@ -3,7 +3,9 @@ package ru.practicum.shareit.item.mapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.util.etag.Etag;
 
 import java.util.stream.Collectors;
 
@@ -30,6 +32,18 @@ public class ItemMapper {
         return itemDto;
     }
 
+    // the entities toItemDto shows; comments are never edited, their authors are
+    public Etag addVersions(Etag etag, Item item) {
+        etag.add("item", item.getId(), item.getVersion());
+        if (item.getComments() != null) {
+            for (Comment comment : item.getComments()) {
+                etag.add("comment", comment.getId())
+                        .add("author", comment.getUser().getId(), comment.getUser().getVersion());
+            }
+        }
+        return etag;
+    }
+
     public Item toItem(ItemDto itemDto) {
         Item item = new Item();
         item.setId(itemDto.getId());
@@ -1,7 +1,18 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    // comments of several items with their author names, without loading the items
+    @Query("SELECT c.item.id AS itemId, c.id AS id, c.text AS text, u.name AS authorName, c.created AS created " +
+            "FROM Comment c JOIN c.user u " +
+            "WHERE c.item.id IN :itemIds " +
+            "ORDER BY c.id")
+    List<CommentView> findAllByItemIdIn(Collection<Long> itemIds);
 }
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.util.fields.FieldSet;
+
+public final class ItemFields {
+    public static final String LAST_BOOKING = "lastBooking";
+    public static final String NEXT_BOOKING = "nextBooking";
+    public static final String COMMENTS = "comments";
+
+    public static final FieldSet<Item> FIELDS = new FieldSet<Item>("id")
+            .column("id", root -> root.get("id"))
+            .column("ownerId", root -> root.get("owner").get("id"))
+            .column("name", root -> root.get("name"))
+            .column("description", root -> root.get("description"))
+            .column("available", root -> root.get("available"))
+            .column("requestId", root -> root.get("request").get("id"))
+            .other(LAST_BOOKING)
+            .other(NEXT_BOOKING)
+            .other(COMMENTS);
+
+    private ItemFields() {
+    }
+}
@@ -2,16 +2,41 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemSearchRepository {
+    @EntityGraph(attributePaths = {"owner", "request"})
     List<Item> findAllByOwner(User owner, PageRequest pageRequest);
 
-    @Query("SELECT i FROM Item i WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(i.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    List<Item> findBySearchTermIgnoreCase(String searchTerm, Pageable pageable);
-}
\ No newline at end of file
+    // next page of owner items after the given id
+    @EntityGraph(attributePaths = {"owner", "request"})
+    @Query("SELECT i FROM Item i WHERE i.owner.id = :ownerId AND i.id > :id ORDER BY i.id")
+    List<Item> findAllByOwnerIdAfter(long ownerId, long id, Pageable pageable);
+
+    // next page of available owner items after the given id
+    @EntityGraph(attributePaths = {"owner", "request"})
+    @Query("SELECT i FROM Item i WHERE i.owner.id = :ownerId AND i.available = true AND i.id > :id ORDER BY i.id")
+    List<Item> findAllAvailableByOwnerIdAfter(long ownerId, long id, Pageable pageable);
+
+    @Query("SELECT i.id FROM Item i WHERE i.owner.id = :ownerId")
+    List<Long> findIdsByOwnerId(long ownerId);
+
+    @EntityGraph(attributePaths = {"owner", "request"})
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds, Sort sort);
+
+    // row lock that serializes concurrent bookings of the same item
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id = :id")
+    Optional<Item> findByIdForUpdate(long id);
+}
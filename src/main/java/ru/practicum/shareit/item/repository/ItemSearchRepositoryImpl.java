@@ -0,0 +1,70 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public class ItemSearchRepositoryImpl implements ItemSearchRepository {
+    // matches the same items as the substring search, through the partial trigram indexes of schema-postgresql.sql;
+    // items.search_vector only ranks them, a word starting with the text ahead of one merely containing it
+    private static final String RANKED_SUBSTRING_SEARCH_QUERY = "SELECT i.* " +
+            "FROM items i, to_tsquery('simple', :query) query " +
+            "WHERE i.is_available = true AND (i.name ILIKE :pattern OR i.description ILIKE :pattern) " +
+            "ORDER BY ts_rank(i.search_vector, query) DESC, i.id";
+
+    private static final String SUBSTRING_SEARCH_QUERY = "SELECT i FROM Item i " +
+            "WHERE i.available = true " +
+            "AND (LOWER(i.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
+            "ORDER BY i.id";
+
+    // the platform that also picks schema-postgresql.sql, so the trigram indexes exist whenever it is postgresql
+    private final boolean postgres;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ItemSearchRepositoryImpl(@Value("${spring.sql.init.platform:}") String platform) {
+        this.postgres = "postgresql".equals(platform);
+    }
+
+    @Override
+    public List<Item> searchAvailable(String text, Pageable pageable) {
+        if (postgres) {
+            return searchRankedSubstring(text, pageable);
+        }
+        return searchSubstring(text, pageable);
+    }
+
+    static String toPrefixTsQuery(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Item> searchRankedSubstring(String text, Pageable pageable) {
+        return entityManager.createNativeQuery(RANKED_SUBSTRING_SEARCH_QUERY, Item.class)
+                .setParameter("pattern", "%" + text + "%")
+                .setParameter("query", toPrefixTsQuery(text))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    private List<Item> searchSubstring(String text, Pageable pageable) {
+        return entityManager.createQuery(SUBSTRING_SEARCH_QUERY, Item.class)
+                .setParameter("searchTerm", text)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.item.model.Item;
+
+public final class ItemSpecifications {
+    private ItemSpecifications() {
+    }
+
+    public static Specification<Item> hasOwner(long ownerId) {
+        return (root, query, builder) -> builder.equal(root.get("owner").get("id"), ownerId);
+    }
+
+    // rows following the cursor in id order
+    public static Specification<Item> afterId(long id) {
+        return (root, query, builder) -> builder.greaterThan(root.get("id"), id);
+    }
+}
@@ -2,19 +2,41 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreationCommentDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.util.pagination.Cursor;
 
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public interface ItemService {
+    static String etagResource(long itemId) {
+        return "items/" + itemId;
+    }
+
     ItemDto create(long ownerId, ItemDto itemDto);
 
+    ItemBatchResultDto createAll(long ownerId, Iterator<ItemDto> itemDtos);
+
     ItemDto getById(long userId, long id);
 
+    String getEtag(long userId, long id);
+
     ItemDto update(long ownerId, long id, ItemDto itemDto);
 
     List<ItemDto> getAllByOwnerId(long ownerId, int from, int size);
 
+    List<ItemDto> getAllByOwnerId(long ownerId, Cursor after, int size);
+
+    // only the fields the client selected, see ItemFields
+    List<Map<String, Object>> getAllFieldsByOwnerId(long ownerId, String fields, int from, int size);
+
+    List<Map<String, Object>> getAllFieldsByOwnerId(long ownerId, String fields, Cursor after, int size);
+
+    List<ItemDto> getAllFreeByOwnerId(long ownerId, LocalDateTime start, LocalDateTime end, int from, int size);
+
     List<ItemDto> getAllBySubstring(long userId, String substring, int from, int size);
 
     CommentDto createComment(long userId, long itemId, CreationCommentDto creationCommentDto);
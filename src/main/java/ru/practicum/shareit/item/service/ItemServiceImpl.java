@@ -2,47 +2,97 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingShortView;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.ItemAvailabilityIndex;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.dto.CreationCommentDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
+import ru.practicum.shareit.item.dto.ItemBatchRowDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemFields;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.validation.group.AddNewItemAction;
+import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdCache;
+import ru.practicum.shareit.util.etag.Etag;
+import ru.practicum.shareit.util.etag.EtagCache;
 import ru.practicum.shareit.util.exception.NotFoundException;
 import ru.practicum.shareit.util.exception.ValidationException;
-
+import ru.practicum.shareit.util.fields.FieldRepository;
+import ru.practicum.shareit.util.fields.FieldSet;
+import ru.practicum.shareit.util.pagination.Cursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.groups.Default;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.jpa.domain.Specification.where;
+import static ru.practicum.shareit.item.repository.ItemSpecifications.afterId;
+import static ru.practicum.shareit.item.repository.ItemSpecifications.hasOwner;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final int FREE_ITEMS_PAGE_SIZE = 500;
+    private static final String CHUNK_NOT_SAVED = "Not saved: database error";
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserIdCache userIdCache;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final RequestRepository requestRepository;
     private final BookingMapper bookingMapper;
     private final CommentMapper commentMapper;
     private final ItemMapper itemMapper;
+    private final ItemAvailabilityIndex availabilityIndex;
+    private final Validator validator;
+    private final EtagCache etagCache;
+    private final FieldRepository fieldRepository;
+    private final TransactionOperations transactionOperations;
+    private final EntityManager entityManager;
 
     @Transactional
     @Override
@@ -57,35 +107,78 @@ public class ItemServiceImpl implements ItemService {
         }
 
         Item itemCreated = itemRepository.save(item);
+        if (itemCreated.getRequest() != null) {
+            evictRequestEtags(itemCreated.getRequest().getId());
+        }
 
         log.info("New Item added: {}", itemCreated);
         return itemMapper.toItemDto(itemCreated);
     }
 
+    // every chunk is committed on its own, so no transaction stays open while the next one is read from the body
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public ItemBatchResultDto createAll(long ownerId, Iterator<ItemDto> itemDtos) {
+        User owner = userRepository.findById(ownerId)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        List<ItemBatchRowDto> rows = new ArrayList<>();
+        List<ItemDto> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        while (itemDtos.hasNext()) {
+            chunk.add(itemDtos.next());
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importChunkInTransaction(owner, chunk, rows);
+                chunk.clear();
+            }
+        }
+        importChunkInTransaction(owner, chunk, rows);
+
+        int created = (int) rows.stream()
+                .filter(row -> row.getId() != null)
+                .count();
+
+        log.info("Imported {} of {} Items of User with id {}", created, rows.size(), ownerId);
+        return new ItemBatchResultDto(created, rows.size() - created, rows);
+    }
+
     @Override
     public ItemDto getById(long userId, long id) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User with id " + userId + " not found"));
+        long etagStamp = etagCache.stamp();
+        userIdCache.checkExists(userId);
         Item item = itemRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Item with id " + id + " not found"));
 
         ItemDto itemDto = itemMapper.toItemDto(item);
+        Etag etag = new Etag();
+        itemMapper.addVersions(etag, item);
+        LocalDateTime etagValidUntil = null;
 
         log.info("Privded Item: {}", item);
-        if (userId == itemDto.getOwnerId()) {
-            itemDto.setLastBooking(getLastBookingShortDtoByItem(item));
-            itemDto.setNextBooking(getNextBookingShortDtoByItem(item));
-            return itemDto;
-        } else {
-            return itemDto;
+        if (userId == item.getOwner().getId()) {
+            List<ItemBookingShortView> bookings = bookingRepository.findLastAndNextByItemId(id, LocalDateTime.now());
+            setLastAndNextBookings(List.of(itemDto), List.of(id), bookings);
+            for (ItemBookingShortView booking : bookings) {
+                etag.add(booking.getKind(), booking.getId());
+                // the next booking becomes the last one when it starts
+                if (ItemBookingShortView.NEXT.equals(booking.getKind())) {
+                    etagValidUntil = booking.getStartDate();
+                }
+            }
         }
+        etagCache.put(ItemService.etagResource(id), etagVariant(userId), etag, etagValidUntil, etagStamp);
+        return itemDto;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public String getEtag(long userId, long id) {
+        return etagCache.get(ItemService.etagResource(id), etagVariant(userId));
     }
 
     @Transactional
     @Override
     public ItemDto update(long ownerId, long id, ItemDto itemDto) {
-        userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("User with id " + ownerId + " not found"));
+        userIdCache.checkExists(ownerId);
         Item item = itemRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Item with id " + id + " not found"));
 
@@ -93,6 +186,10 @@ public class ItemServiceImpl implements ItemService {
             updateItemFields(itemDto, item);
 
             Item itemUpdated = itemRepository.save(item);
+            etagCache.evict(ItemService.etagResource(id));
+            if (itemUpdated.getRequest() != null) {
+                evictRequestEtags(itemUpdated.getRequest().getId());
+            }
 
             log.info("Item updated: {}", itemUpdated);
             return itemMapper.toItemDto(itemUpdated);
@@ -103,35 +200,112 @@ public class ItemServiceImpl implements ItemService {
 
     @Override
     public List<ItemDto> getAllByOwnerId(long ownerId, int from, int size) {
-        User user = userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("User with id " + ownerId + " not found"));
+        userIdCache.checkExists(ownerId);
 
         Sort sort = Sort.sort(Item.class).by(Item::getId);
 
         PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, sort);
 
-        List<Item> items = itemRepository.findAllByOwner(user, pageRequest);
+        List<Item> items = itemRepository.findAllByOwner(userRepository.getReferenceById(ownerId), pageRequest);
         List<ItemDto> itemDtos = toItemDto(items);
 
         log.info("Provided list of Items of User with id {}", ownerId);
         return itemDtos;
     }
 
+    @Override
+    public List<ItemDto> getAllByOwnerId(long ownerId, Cursor after, int size) {
+        userIdCache.checkExists(ownerId);
+
+        List<Item> items = itemRepository.findAllByOwnerIdAfter(ownerId, after.getId(), PageRequest.of(0, size));
+        List<ItemDto> itemDtos = toItemDto(items);
+
+        log.info("Provided list of Items of User with id {} after {}", ownerId, after);
+        return itemDtos;
+    }
+
+    @Override
+    public List<Map<String, Object>> getAllFieldsByOwnerId(long ownerId, String fields, int from, int size) {
+        userIdCache.checkExists(ownerId);
+        FieldSet<Item>.Selection selection = ItemFields.FIELDS.select(fields);
+
+        List<Map<String, Object>> items = fieldRepository.findAll(Item.class, selection, hasOwner(ownerId),
+                PageRequest.of(from > 0 ? from / size : 0, size, Sort.by("id")));
+        addSelectedAssociations(items, selection);
+
+        log.info("Provided fields {} of Items of User with id {}", selection.getNames(), ownerId);
+        return items;
+    }
+
+    @Override
+    public List<Map<String, Object>> getAllFieldsByOwnerId(long ownerId, String fields, Cursor after, int size) {
+        userIdCache.checkExists(ownerId);
+        FieldSet<Item>.Selection selection = ItemFields.FIELDS.select(fields);
+
+        List<Map<String, Object>> items = fieldRepository.findAll(Item.class, selection,
+                where(hasOwner(ownerId)).and(afterId(after.getId())),
+                PageRequest.of(0, size, Sort.by("id")));
+        addSelectedAssociations(items, selection);
+
+        log.info("Provided fields {} of Items of User with id {} after {}", selection.getNames(), ownerId, after);
+        return items;
+    }
+
+    @Override
+    public List<ItemDto> getAllFreeByOwnerId(long ownerId, LocalDateTime start, LocalDateTime end, int from, int size) {
+        userIdCache.checkExists(ownerId);
+
+        if (!start.isBefore(end)) {
+            throw new ValidationException("Start time should be before end time");
+        }
+        if (start.isBefore(LocalDateTime.now())) {
+            throw new ValidationException("Start time cannot be in the past");
+        }
+
+        long offset = (long) (from > 0 ? from / size : 0) * size;
+        // pages are as long as the wanted ones, so another page is read only when booked items took up the room
+        Pageable page = PageRequest.of(0, (int) Math.min(offset + size, FREE_ITEMS_PAGE_SIZE));
+
+        List<ItemDto> items = new ArrayList<>();
+        List<Item> available;
+        long lastId = 0;
+        do {
+            available = itemRepository.findAllAvailableByOwnerIdAfter(ownerId, lastId, page);
+            Set<Long> booked = availabilityIndex.findBooked(
+                    available.stream().map(Item::getId).collect(Collectors.toList()), start, end);
+            for (Item item : available) {
+                if (items.size() == size) {
+                    break;
+                }
+                if (booked.contains(item.getId())) {
+                    continue;
+                }
+                if (offset > 0) {
+                    offset--;
+                } else {
+                    items.add(itemMapper.toItemDto(item));
+                }
+            }
+            if (!available.isEmpty()) {
+                lastId = available.get(available.size() - 1).getId();
+            }
+        } while (items.size() < size && available.size() == page.getPageSize());
+
+        log.info("Provided list of Items of User with id {} free from {} to {}", ownerId, start, end);
+        return items;
+    }
+
     @Override
     public List<ItemDto> getAllBySubstring(long userId, String substring, int from, int size) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User with id " + userId + " not found"));
+        userIdCache.checkExists(userId);
 
         if (substring.equals("")) {
             return List.of();
         }
 
-        Sort sort = Sort.unsorted();
-        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, sort);
+        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size);
 
-        List<ItemDto> items = itemRepository.findBySearchTermIgnoreCase(substring,
-                        pageRequest).stream()
-                .filter(Item::getAvailable)
+        List<ItemDto> items = itemRepository.searchAvailable(substring, pageRequest).stream()
                 .map(itemMapper::toItemDto)
                 .collect(Collectors.toList());
 
@@ -146,12 +320,13 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new NotFoundException("User with id " + userId + " not found"));
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Item with id " + itemId + " not found"));
-        bookingRepository.findFirstByBookerAndItemAndStatusAndEndBefore(
-                        user,
-                        item,
-                        BookingStatus.APPROVED,
-                        LocalDateTime.now())
-                .orElseThrow(() -> new ValidationException("Booking not found"));
+        if (!bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(
+                userId,
+                itemId,
+                BookingStatus.APPROVED,
+                LocalDateTime.now())) {
+            throw new ValidationException("Booking not found");
+        }
 
         Comment comment = commentMapper.toComment(creationCommentDto);
         comment.setItem(item);
@@ -159,25 +334,124 @@ public class ItemServiceImpl implements ItemService {
         comment.setCreated(LocalDateTime.now());
 
         Comment savedComment = commentRepository.save(comment);
+        etagCache.evict(ItemService.etagResource(itemId));
+        if (item.getRequest() != null) {
+            evictRequestEtags(item.getRequest().getId());
+        }
 
         log.info("New Item added: {}", savedComment);
         return commentMapper.toCommentDto(savedComment);
     }
 
-    private BookingShortDto getLastBookingShortDtoByItem(Item item) {
-        return bookingRepository.findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(item,
-                        LocalDateTime.now(),
-                        BookingStatus.REJECTED)
-                .map(bookingMapper::toBookingShortDto)
-                .orElse(null);
+    // requests of the whole chunk are loaded by one query, its items are inserted in JDBC batches on flush
+    // earlier chunks stay committed when one fails, so its rows are reported as not saved and the import goes on:
+    // the client then resends exactly the rows without an id
+    private void importChunkInTransaction(User owner, List<ItemDto> chunk, List<ItemBatchRowDto> rows) {
+        int firstRow = rows.size();
+        try {
+            transactionOperations.executeWithoutResult(status -> importChunk(owner, chunk, rows));
+        } catch (DataAccessException | TransactionException | PersistenceException e) {
+            log.warn("Rows {} to {} of Items import of User with id {} not saved", firstRow,
+                    firstRow + chunk.size() - 1, owner.getId(), e);
+            for (int index = firstRow; index < firstRow + chunk.size(); index++) {
+                if (index == rows.size()) {
+                    rows.add(new ItemBatchRowDto(index, null, CHUNK_NOT_SAVED));
+                } else if (rows.get(index).getError() == null) {
+                    // the id was only assigned, the insert was rolled back
+                    rows.get(index).setId(null);
+                    rows.get(index).setError(CHUNK_NOT_SAVED);
+                }
+            }
+        }
+    }
+
+    private void importChunk(User owner, List<ItemDto> chunk, List<ItemBatchRowDto> rows) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        skipCachePutsUntilCompletion();
+
+        Set<Long> requestIds = chunk.stream()
+                .filter(Objects::nonNull)
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Request> requests = requestIds.isEmpty()
+                ? Map.of()
+                : requestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(Request::getId, Function.identity()));
+
+        List<Item> items = new ArrayList<>(chunk.size());
+        List<ItemBatchRowDto> createdRows = new ArrayList<>(chunk.size());
+        for (ItemDto itemDto : chunk) {
+            ItemBatchRowDto row = new ItemBatchRowDto(rows.size(), null, validate(itemDto, requests));
+            rows.add(row);
+            if (row.getError() != null) {
+                continue;
+            }
+
+            Item item = itemMapper.toItem(itemDto);
+            item.setId(null);
+            item.setOwner(owner);
+            if (itemDto.getRequestId() != null) {
+                item.setRequest(requests.get(itemDto.getRequestId()));
+            }
+            items.add(item);
+            createdRows.add(row);
+        }
+
+        itemRepository.saveAll(items);
+        for (int i = 0; i < items.size(); i++) {
+            createdRows.get(i).setId(items.get(i).getId());
+        }
+        // the persistence context lives as long as the request, it would otherwise keep every imported item
+        entityManager.flush();
+        entityManager.clear();
+        requests.keySet().forEach(this::evictRequestEtags);
+    }
+
+    // few imported items are read soon after, putting each into the second-level cache on commit costs more than it
+    // saves; the mode is restored once the commit, including Hibernate's own cache work, is over
+    private void skipCachePutsUntilCompletion() {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    session.setCacheMode(cacheMode);
+                }
+            });
+        }
+    }
+
+    private String validate(ItemDto itemDto, Map<Long, Request> requests) {
+        if (itemDto == null) {
+            return "Item should not be null";
+        }
+        Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto,
+                Default.class, AddNewItemAction.class);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (itemDto.getRequestId() != null && !requests.containsKey(itemDto.getRequestId())) {
+            return "Request with id " + itemDto.getRequestId() + " not found";
+        }
+        return null;
+    }
+
+    // items are shown inside their request, in its own response and in the lists of all requests
+    private void evictRequestEtags(long requestId) {
+        etagCache.evict(RequestService.etagResource(requestId));
+        etagCache.evict(RequestService.ALL_ETAG_RESOURCE);
     }
 
-    private BookingShortDto getNextBookingShortDtoByItem(Item item) {
-        return bookingRepository.findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(item,
-                        LocalDateTime.now(),
-                        BookingStatus.REJECTED)
-                .map(bookingMapper::toBookingShortDto)
-                .orElse(null);
+    private static String etagVariant(long userId) {
+        return "user=" + userId;
     }
 
     private void updateItemFields(ItemDto itemDto, Item item) {
@@ -193,27 +467,74 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private List<ItemDto> toItemDto(List<Item> items) {
-        // TODO: 07.07.2023 Maybe replace to ItemMapper?
-        List<ItemDto> itemDtos = new ArrayList<>();
-        for (Item item : items) {
-            ItemDto itemDto = itemMapper.toItemDto(item);
-
-            BookingShortDto lastBookingDto
-                    = bookingRepository.findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(item,
-                            LocalDateTime.now(),
-                            BookingStatus.REJECTED)
-                    .map(bookingMapper::toBookingShortDto)
-                    .orElse(null);
-            BookingShortDto nextBookingDto
-                    = bookingRepository.findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(item,
-                            LocalDateTime.now(),
-                            BookingStatus.REJECTED)
-                    .map(bookingMapper::toBookingShortDto)
-                    .orElse(null);
-            itemDto.setLastBooking(lastBookingDto);
-            itemDto.setNextBooking(nextBookingDto);
-            itemDtos.add(itemDto);
+        if (items.isEmpty()) {
+            return List.of();
         }
+
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        // mapped before the native query below: its auto flush drops the pending comment batch
+        List<ItemDto> itemDtos = items.stream()
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList());
+
+        setLastAndNextBookings(itemDtos, itemIds, bookingRepository.findLastAndNextByItemIds(itemIds,
+                LocalDateTime.now()));
         return itemDtos;
     }
+
+    private void setLastAndNextBookings(List<ItemDto> itemDtos,
+                                        List<Long> itemIds,
+                                        List<ItemBookingShortView> bookingViews) {
+        Map<Long, BookingShortDto> lastBookings = new HashMap<>();
+        Map<Long, BookingShortDto> nextBookings = new HashMap<>();
+        for (ItemBookingShortView bookingView : bookingViews) {
+            Map<Long, BookingShortDto> bookings = ItemBookingShortView.LAST.equals(bookingView.getKind())
+                    ? lastBookings
+                    : nextBookings;
+            bookings.put(bookingView.getItemId(), bookingMapper.toBookingShortDto(bookingView));
+        }
+
+        for (int i = 0; i < itemDtos.size(); i++) {
+            Long itemId = itemIds.get(i);
+            itemDtos.get(i).setLastBooking(lastBookings.get(itemId));
+            itemDtos.get(i).setNextBooking(nextBookings.get(itemId));
+        }
+    }
+
+    // one query per selected association for the whole page, none for the others
+    private void addSelectedAssociations(List<Map<String, Object>> items, FieldSet<Item>.Selection selection) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Long> itemIds = items.stream()
+                .map(item -> (Long) item.get("id"))
+                .collect(Collectors.toList());
+
+        if (selection.contains(ItemFields.LAST_BOOKING) || selection.contains(ItemFields.NEXT_BOOKING)) {
+            Map<String, Map<Long, BookingShortDto>> bookings = new HashMap<>();
+            for (ItemBookingShortView bookingView : bookingRepository.findLastAndNextByItemIds(itemIds,
+                    LocalDateTime.now())) {
+                String field = ItemBookingShortView.LAST.equals(bookingView.getKind())
+                        ? ItemFields.LAST_BOOKING
+                        : ItemFields.NEXT_BOOKING;
+                bookings.computeIfAbsent(field, key -> new HashMap<>())
+                        .put(bookingView.getItemId(), bookingMapper.toBookingShortDto(bookingView));
+            }
+            for (String field : List.of(ItemFields.LAST_BOOKING, ItemFields.NEXT_BOOKING)) {
+                if (selection.contains(field)) {
+                    Map<Long, BookingShortDto> bookingsOfField = bookings.getOrDefault(field, Map.of());
+                    items.forEach(item -> item.put(field, bookingsOfField.get((Long) item.get("id"))));
+                }
+            }
+        }
+        if (selection.contains(ItemFields.COMMENTS)) {
+            Map<Long, List<CommentDto>> comments = commentRepository.findAllByItemIdIn(itemIds).stream()
+                    .collect(Collectors.groupingBy(CommentView::getItemId,
+                            Collectors.mapping(commentMapper::toCommentDto, Collectors.toList())));
+            items.forEach(item -> item.put(ItemFields.COMMENTS,
+                    comments.getOrDefault((Long) item.get("id"), List.of())));
+        }
+    }
 }
@@ -1,15 +1,22 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.request.dto.CreationRequestDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.util.etag.ConditionalGet;
+import ru.practicum.shareit.util.pagination.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping(path = "/requests")
@@ -25,9 +32,12 @@ public class RequestController {
     }
 
     @GetMapping("/{requestId}")
-    RequestDto getById(@RequestHeader("X-Sharer-User-Id") long userId,
-                       @PathVariable long requestId) {
-        return requestService.getById(userId, requestId);
+    ResponseEntity<RequestDto> getById(@RequestHeader("X-Sharer-User-Id") long userId,
+                                       @PathVariable long requestId,
+                                       WebRequest request) {
+        return ConditionalGet.respond(request,
+                () -> requestService.getEtag(userId, requestId),
+                () -> requestService.getById(userId, requestId));
     }
 
     @GetMapping
@@ -36,9 +46,46 @@ public class RequestController {
     }
 
     @GetMapping("/all")
-    List<RequestDto> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
-                            @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
-                            @RequestParam(defaultValue = "10", required = false) @Min(1L) int size) {
-        return requestService.getAll(userId, from, size);
+    ResponseEntity<List<RequestDto>> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
+                                            @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
+                                            @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+                                            @RequestParam(required = false) String after,
+                                            WebRequest request,
+                                            HttpServletResponse response) {
+        Cursor cursor = after == null ? null : Cursor.decode(after);
+        return ConditionalGet.respond(request,
+                () -> cursor == null
+                        ? requestService.getAllEtag(userId, from, size)
+                        : requestService.getAllEtag(userId, cursor, size),
+                () -> {
+                    List<RequestDto> requests = cursor == null
+                            ? requestService.getAll(userId, from, size)
+                            : requestService.getAll(userId, cursor, size);
+                    if (requests.size() == size) {
+                        RequestDto last = requests.get(size - 1);
+                        response.setHeader(Cursor.NEXT_CURSOR_HEADER,
+                                Cursor.of(LocalDateTime.parse(last.getCreated()), last.getId()).encode());
+                    }
+                    return requests;
+                });
+    }
+
+    // only the selected fields, e.g. fields=description,items; not tagged, the tags describe whole requests
+    @GetMapping(path = "/all", params = "fields")
+    List<Map<String, Object>> getAllFields(@RequestHeader("X-Sharer-User-Id") long userId,
+                                           @RequestParam String fields,
+                                           @RequestParam(defaultValue = "0", required = false) @Min(0L) int from,
+                                           @RequestParam(defaultValue = "10", required = false) @Min(1L) int size,
+                                           @RequestParam(required = false) String after,
+                                           HttpServletResponse response) {
+        List<Map<String, Object>> requests = after == null
+                ? requestService.getAllFields(userId, fields, from, size)
+                : requestService.getAllFields(userId, fields, Cursor.decode(after), size);
+        if (requests.size() == size) {
+            Map<String, Object> last = requests.get(size - 1);
+            response.setHeader(Cursor.NEXT_CURSOR_HEADER,
+                    Cursor.of(LocalDateTime.parse((String) last.get("created")), (Long) last.get("id")).encode());
+        }
+        return requests;
     }
 }
@@ -3,10 +3,12 @@ package ru.practicum.shareit.request.mapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.CreationRequestDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.etag.Etag;
 
 import java.util.stream.Collectors;
 
@@ -37,4 +39,13 @@ public class RequestMapper {
 
         return requestDto;
     }
+
+    // the entities toRequestDto shows
+    public Etag addVersions(Etag etag, Request request) {
+        etag.add("request", request.getId(), request.getVersion());
+        for (Item item : request.getItems()) {
+            itemMapper.addVersions(etag, item);
+        }
+        return etag;
+    }
 }
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.request.repository;
+
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.util.fields.FieldSet;
+
+public final class RequestFields {
+    public static final String ITEMS = "items";
+
+    public static final FieldSet<Request> FIELDS = new FieldSet<Request>("id", "created")
+            .column("id", root -> root.get("id"))
+            .column("description", root -> root.get("description"))
+            .column("created", root -> root.get("created"))
+            .column("requestorId", root -> root.get("requestor").get("id"))
+            .other(ITEMS);
+
+    private RequestFields() {
+    }
+}
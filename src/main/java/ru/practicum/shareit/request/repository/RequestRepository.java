@@ -1,12 +1,32 @@
 package ru.practicum.shareit.request.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RequestRepository extends JpaRepository<Request, Long> {
+    @EntityGraph(attributePaths = "requestor")
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     List<Request> findAllByRequestor(User requestor, Sort sort);
+
+    // requests of other users
+    @EntityGraph(attributePaths = "requestor")
+    List<Request> findAllByRequestorIdNot(long requestorId, Pageable pageable);
+
+    // next page of requests of other users after the given (created, id)
+    @EntityGraph(attributePaths = "requestor")
+    @Query("SELECT r FROM Request r " +
+            "WHERE r.requestor.id <> :requestorId " +
+            "AND (r.created < :created OR (r.created = :created AND r.id < :id)) " +
+            "ORDER BY r.created DESC, r.id DESC")
+    List<Request> findAllByRequestorIdNotAfter(long requestorId, LocalDateTime created, long id, Pageable pageable);
 }
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.util.pagination.Cursor;
+
+import java.time.LocalDateTime;
+
+public final class RequestSpecifications {
+    private RequestSpecifications() {
+    }
+
+    public static Specification<Request> notOfRequestor(long requestorId) {
+        return (root, query, builder) -> builder.notEqual(root.get("requestor").get("id"), requestorId);
+    }
+
+    // rows following the cursor in (created, id) descending order
+    public static Specification<Request> afterCursor(Cursor cursor) {
+        LocalDateTime created = cursor.getTimestampOrThrow();
+        return (root, query, builder) -> builder.or(
+                builder.lessThan(root.get("created"), created),
+                builder.and(
+                        builder.equal(root.get("created"), created),
+                        builder.lessThan(root.get("id"), cursor.getId())));
+    }
+}
@@ -2,15 +2,36 @@ package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.dto.CreationRequestDto;
 import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.util.pagination.Cursor;
 
 import java.util.List;
+import java.util.Map;
 
 public interface RequestService {
+    String ALL_ETAG_RESOURCE = "requests/all";
+
+    static String etagResource(long requestId) {
+        return "requests/" + requestId;
+    }
+
     RequestDto create(long userId, CreationRequestDto creationRequestDto);
 
     RequestDto getById(long userId, long requestId);
 
+    String getEtag(long userId, long requestId);
+
     List<RequestDto> getAllByUser(long userId);
 
     List<RequestDto> getAll(long userId, int from, int size);
+
+    List<RequestDto> getAll(long userId, Cursor after, int size);
+
+    // only the fields the client selected, see RequestFields
+    List<Map<String, Object>> getAllFields(long userId, String fields, int from, int size);
+
+    List<Map<String, Object>> getAllFields(long userId, String fields, Cursor after, int size);
+
+    String getAllEtag(long userId, int from, int size);
+
+    String getAllEtag(long userId, Cursor after, int size);
 }
@@ -5,19 +5,36 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.CreationRequestDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestFields;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdCache;
+import ru.practicum.shareit.util.etag.Etag;
+import ru.practicum.shareit.util.etag.EtagCache;
 import ru.practicum.shareit.util.exception.NotFoundException;
+import ru.practicum.shareit.util.fields.FieldRepository;
+import ru.practicum.shareit.util.fields.FieldSet;
+import ru.practicum.shareit.util.pagination.Cursor;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.jpa.domain.Specification.where;
+import static ru.practicum.shareit.request.repository.RequestSpecifications.afterCursor;
+import static ru.practicum.shareit.request.repository.RequestSpecifications.notOfRequestor;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -25,7 +42,12 @@ import java.util.stream.Collectors;
 public class RequestServiceImpl implements RequestService {
     private final RequestRepository requestRepository;
     private final UserRepository userRepository;
+    private final UserIdCache userIdCache;
     private final RequestMapper requestMapper;
+    private final EtagCache etagCache;
+    private final FieldRepository fieldRepository;
+    private final ItemRepository itemRepository;
+    private final ItemMapper itemMapper;
 
     @Transactional
     @Override
@@ -35,6 +57,7 @@ public class RequestServiceImpl implements RequestService {
         Request request = requestMapper.toRequest(creationRequestDto, requestor);
 
         Request requestCreated = requestRepository.save(request);
+        etagCache.evict(ALL_ETAG_RESOURCE);
 
         log.info("Added new Request: {}", requestCreated);
         return requestMapper.toRequestDto(requestCreated);
@@ -42,40 +65,138 @@ public class RequestServiceImpl implements RequestService {
 
     @Override
     public RequestDto getById(long userId, long requestId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
+        long etagStamp = etagCache.stamp();
+        userIdCache.checkExists(userId, "User not found");
         Request request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Request not found"));
 
+        RequestDto requestDto = requestMapper.toRequestDto(request);
+        etagCache.put(RequestService.etagResource(requestId), "user=" + userId,
+                requestMapper.addVersions(new Etag(), request), null, etagStamp);
+
         log.info("Provided Request: {}", request);
-        return requestMapper.toRequestDto(request);
+        return requestDto;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public String getEtag(long userId, long requestId) {
+        return etagCache.get(RequestService.etagResource(requestId), "user=" + userId);
     }
 
     @Override
     public List<RequestDto> getAllByUser(long userId) {
-        User requestor = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
+        userIdCache.checkExists(userId, "User not found");
 
         Sort sort = Sort.sort(Request.class).by(Request::getCreated).descending();
 
         log.info("Provided all Request list by User");
-        return requestRepository.findAllByRequestor(requestor, sort).stream()
+        return requestRepository.findAllByRequestor(userRepository.getReferenceById(userId), sort).stream()
                 .map(requestMapper::toRequestDto)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<RequestDto> getAll(long userId, int from, int size) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
+        long etagStamp = etagCache.stamp();
+        userIdCache.checkExists(userId, "User not found");
 
-        Sort sort = Sort.sort(Request.class).by(Request::getCreated).descending();
+        Sort sort = Sort.by(Sort.Direction.DESC, "created", "id");
         PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, sort);
 
+        List<Request> requests = requestRepository.findAllByRequestorIdNot(userId, pageRequest);
+        List<RequestDto> requestDtos = toRequestDtoTagged(requests, allEtagVariant(userId, from, size), etagStamp);
+
         log.info("Provided all Request list");
-        return requestRepository.findAll(pageRequest).stream()
-                .filter(request -> request.getRequestor().getId() != userId)
-                .map(requestMapper::toRequestDto)
+        return requestDtos;
+    }
+
+    @Override
+    public List<RequestDto> getAll(long userId, Cursor after, int size) {
+        long etagStamp = etagCache.stamp();
+        userIdCache.checkExists(userId, "User not found");
+
+        List<Request> requests = requestRepository.findAllByRequestorIdNotAfter(userId,
+                after.getTimestampOrThrow(),
+                after.getId(),
+                PageRequest.of(0, size));
+        List<RequestDto> requestDtos = toRequestDtoTagged(requests, allEtagVariant(userId, after, size), etagStamp);
+
+        log.info("Provided all Request list after {}", after);
+        return requestDtos;
+    }
+
+    @Override
+    public List<Map<String, Object>> getAllFields(long userId, String fields, int from, int size) {
+        userIdCache.checkExists(userId, "User not found");
+        FieldSet<Request>.Selection selection = RequestFields.FIELDS.select(fields);
+
+        List<Map<String, Object>> requests = fieldRepository.findAll(Request.class, selection, notOfRequestor(userId),
+                PageRequest.of(from > 0 ? from / size : 0, size, Sort.by(Sort.Direction.DESC, "created", "id")));
+        addSelectedItems(requests, selection);
+
+        log.info("Provided fields {} of all Request list", selection.getNames());
+        return requests;
+    }
+
+    @Override
+    public List<Map<String, Object>> getAllFields(long userId, String fields, Cursor after, int size) {
+        userIdCache.checkExists(userId, "User not found");
+        FieldSet<Request>.Selection selection = RequestFields.FIELDS.select(fields);
+
+        List<Map<String, Object>> requests = fieldRepository.findAll(Request.class, selection,
+                where(notOfRequestor(userId)).and(afterCursor(after)),
+                PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "created", "id")));
+        addSelectedItems(requests, selection);
+
+        log.info("Provided fields {} of all Request list after {}", selection.getNames(), after);
+        return requests;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public String getAllEtag(long userId, int from, int size) {
+        return etagCache.get(ALL_ETAG_RESOURCE, allEtagVariant(userId, from, size));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public String getAllEtag(long userId, Cursor after, int size) {
+        return etagCache.get(ALL_ETAG_RESOURCE, allEtagVariant(userId, after, size));
+    }
+
+    private List<RequestDto> toRequestDtoTagged(List<Request> requests, String etagVariant, long etagStamp) {
+        Etag etag = new Etag();
+        List<RequestDto> requestDtos = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            requestDtos.add(requestMapper.toRequestDto(request));
+            requestMapper.addVersions(etag, request);
+        }
+        etagCache.put(ALL_ETAG_RESOURCE, etagVariant, etag, null, etagStamp);
+        return requestDtos;
+    }
+
+    private static String allEtagVariant(long userId, int from, int size) {
+        return "user=" + userId + "&from=" + from + "&size=" + size;
+    }
+
+    private static String allEtagVariant(long userId, Cursor after, int size) {
+        return "user=" + userId + "&after=" + after.encode() + "&size=" + size;
+    }
+
+    // the items of the whole page in one query, only when they were selected
+    private void addSelectedItems(List<Map<String, Object>> requests, FieldSet<Request>.Selection selection) {
+        if (requests.isEmpty() || !selection.contains(RequestFields.ITEMS)) {
+            return;
+        }
+        List<Long> requestIds = requests.stream()
+                .map(request -> (Long) request.get("id"))
                 .collect(Collectors.toList());
+
+        Map<Long, List<ItemDto>> items = itemRepository.findAllByRequestIdIn(requestIds, Sort.by("id")).stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId(),
+                        Collectors.mapping(itemMapper::toItemDto, Collectors.toList())));
+        requests.forEach(request -> request.put(RequestFields.ITEMS,
+                items.getOrDefault((Long) request.get("id"), List.of())));
     }
 }
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.datasource.ReplicaRoutingDataSource;
+import ru.practicum.shareit.util.exception.NotFoundException;
+
+/**
+ * Ids of users known to exist, so that services can check the caller without loading the user row.
+ * Only existing ids are remembered, the least recently used ones give way when the cache is full;
+ * an id is forgotten when its user is deleted through {@link UserService}. Ids read from a replica are not remembered.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserIdCache {
+    private static final int MAX_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Boolean> knownIds = Caffeine.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .build();
+
+    public void checkExists(long id) {
+        checkExists(id, "User with id " + id + " not found");
+    }
+
+    public void checkExists(long id, String notFoundMessage) {
+        if (!exists(id)) {
+            throw new NotFoundException(notFoundMessage);
+        }
+    }
+
+    public boolean exists(long id) {
+        if (knownIds.getIfPresent(id) != null) {
+            return true;
+        }
+        boolean exists = userRepository.existsById(id);
+        // a lagging replica may still have a user the primary has deleted
+        if (exists && !ReplicaRoutingDataSource.isCurrentTransactionOnReplica()) {
+            knownIds.put(id, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    public void evict(long id) {
+        knownIds.invalidate(id);
+        // a concurrent read may see the row again until the delete commits
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    knownIds.invalidate(id);
+                }
+            });
+        }
+    }
+}
@@ -2,14 +2,24 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.service.ItemAvailabilityIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.etag.EtagCache;
 import ru.practicum.shareit.util.exception.NotFoundException;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,7 +29,12 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
     private final UserMapper userMapper;
+    private final UserIdCache userIdCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ItemAvailabilityIndex availabilityIndex;
+    private final EtagCache etagCache;
 
     @Transactional
     @Override
@@ -50,6 +65,10 @@ public class UserServiceImpl implements UserService {
         updateFields(user, userToUpdate);
 
         User userUpdated = userRepository.save(userToUpdate);
+        if (user.getName() != null) {
+            // the name is shown in comments on items and requests
+            etagCache.evictAll();
+        }
 
         log.info("Updated User: {}", userUpdated);
         return userMapper.toUserDto(userUpdated);
@@ -61,7 +80,16 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("User with id " + id + " not found"));
 
+        List<Long> itemIds = itemRepository.findIdsByOwnerId(id);
         userRepository.deleteById(id);
+        // evicted now, so that this transaction no longer reads the cascaded rows, and again once the delete
+        // commits, so that a read running meanwhile cannot leave them cached
+        userIdCache.evict(id);
+        etagCache.evictAll();
+        evictCascadedFromCache();
+        afterCommit(this::evictCascadedFromCache);
+        // applied by the index itself after commit
+        availabilityIndex.removeUser(id, itemIds);
         log.info("Deleted User: {}", user);
     }
 
@@ -75,6 +103,25 @@ public class UserServiceImpl implements UserService {
         return users;
     }
 
+    // items and requests of a deleted user are removed by ON DELETE CASCADE, which Hibernate does not see
+    private void evictCascadedFromCache() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evict(Item.class);
+        cache.evict(Request.class);
+        cache.evictQueryRegions();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
     private void updateFields(User user, User userToUpdate) {
         if (user.getName() != null) {
             userToUpdate.setName(user.getName());
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.util.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * Replaces the auto-configured data source with primary and replica pools behind
+ * a {@link ReplicaRoutingDataSource} when {@code shareit.datasource.replica.url} is set.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    @ConditionalOnProperty("shareit.datasource.replica.url")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("shareit.datasource.replica.hikari")
+    @ConditionalOnProperty("shareit.datasource.replica.url")
+    public HikariDataSource replicaDataSource(ReplicaProperties properties) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .driverClassName(properties.getDriverClassName())
+                .build();
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty("shareit.datasource.replica.url")
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ReplicaProperties replicaProperties,
+                                 ReadYourWrites readYourWrites,
+                                 ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource(dataSourceProperties),
+                replicaDataSource(replicaProperties), replicaProperties, readYourWrites, entityManagerFactory);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.util.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users whose own writes may not have reached the replica yet. Their read-only transactions
+ * go to the primary until the window from {@link ReplicaProperties#getReadYourWritesWindow()} passes.
+ * The user of a transaction is the caller of the current HTTP request.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadYourWrites {
+    static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final ReplicaProperties properties;
+    private final Map<Long, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    void pinCurrentUser() {
+        Long userId = currentUserId();
+        if (userId != null) {
+            pin(userId);
+        }
+    }
+
+    void pin(long userId) {
+        if (!properties.isEnabled() || properties.getReadYourWritesWindow().isZero()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (pinnedUntil.size() > PURGE_THRESHOLD) {
+            pinnedUntil.values().removeIf(deadline -> deadline - now <= 0);
+        }
+        pinnedUntil.put(userId, now + properties.getReadYourWritesWindow().toNanos());
+    }
+
+    boolean isCurrentUserPinned() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return false;
+        }
+        Long deadline = pinnedUntil.get(userId);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline - System.nanoTime() > 0) {
+            return true;
+        }
+        pinnedUntil.remove(userId, deadline);
+        return false;
+    }
+
+    private static Long currentUserId() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        String header = ((ServletRequestAttributes) attributes).getRequest().getHeader(USER_HEADER);
+        try {
+            return header == null ? null : Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.util.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection to a read replica, e.g. {@code shareit.datasource.replica.url=jdbc:postgresql://replica:5432/shareit}.
+ * Without a url every transaction goes to {@code spring.datasource}. Pool settings are taken
+ * from {@code shareit.datasource.replica.hikari.*} like {@code spring.datasource.hikari.*} for the primary.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("shareit.datasource.replica")
+public class ReplicaProperties {
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    // read-only transactions go to the primary while the replica is further behind than this
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+    // NULL when the replica is not receiving, a replica cut off from the primary falls behind like one that replays
+    // slowly; 0 when it replayed all it received, as the last replayed transaction only ages while the primary idles;
+    // otherwise seconds since the replica replayed the last transaction of the primary
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() IS NULL THEN NULL " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+    // a user who wrote anything reads from the primary for this long, zero turns it off
+    private Duration readYourWritesWindow = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+        return url != null && !url.isBlank();
+    }
+}
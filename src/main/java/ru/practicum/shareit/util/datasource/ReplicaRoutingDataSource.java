@@ -0,0 +1,150 @@
+package ru.practicum.shareit.util.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * The replica is skipped while its lag is over {@link ReplicaProperties#getMaxLag()} or cannot be measured,
+ * and for users pinned by {@link ReadYourWrites}; a read-write transaction pins the user of the current request.
+ * Nothing read in a transaction on the replica goes into a cache that outlives it, see
+ * {@link #isCurrentTransactionOnReplica()}. The lag is measured on the thread that needs a connection,
+ * at most once per {@link ReplicaProperties#getLagCheckInterval()}; other threads use the last result meanwhile.
+ * Must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the transaction manager asks for a connection before the transaction is marked read-only.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target { PRIMARY, REPLICA }
+
+    private static final Object REPLICA_TRANSACTION = new Object();
+
+    private final DataSource replica;
+    private final ReplicaProperties properties;
+    private final ReadYourWrites readYourWrites;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final AtomicBoolean checkingLag = new AtomicBoolean();
+    private volatile boolean replicaUsable;
+    private volatile long nextLagCheck = System.nanoTime();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaProperties properties,
+                                    ReadYourWrites readYourWrites,
+                                    ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.replica = replica;
+        this.properties = properties;
+        this.readYourWrites = readYourWrites;
+        this.entityManagerFactory = entityManagerFactory;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * True once the current transaction has read from the replica. What it read may be older than a write
+     * that has already evicted the cached copy, so caches must not keep it: it would outlive the lag.
+     */
+    public static boolean isCurrentTransactionOnReplica() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_TRANSACTION);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWrites.pinCurrentUser();
+            }
+            return Target.PRIMARY;
+        }
+        if (!isReplicaUsable() || readYourWrites.isCurrentUserPinned()) {
+            return Target.PRIMARY;
+        }
+        markReplicaTransaction();
+        return Target.REPLICA;
+    }
+
+    // the session reads the second-level and query caches but puts nothing into them until the transaction ends
+    private void markReplicaTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || isCurrentTransactionOnReplica()) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_TRANSACTION, Boolean.TRUE);
+        Session session = currentSession();
+        CacheMode cacheMode = session == null ? null : session.getCacheMode();
+        if (session != null) {
+            session.setCacheMode(CacheMode.GET);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_TRANSACTION);
+                if (session != null && session.isOpen()) {
+                    session.setCacheMode(cacheMode);
+                }
+            }
+        });
+    }
+
+    private Session currentSession() {
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        Object holder = factory == null ? null : TransactionSynchronizationManager.getResource(factory);
+        return holder instanceof EntityManagerHolder
+                ? ((EntityManagerHolder) holder).getEntityManager().unwrap(Session.class)
+                : null;
+    }
+
+    private boolean isReplicaUsable() {
+        if (System.nanoTime() - nextLagCheck >= 0 && checkingLag.compareAndSet(false, true)) {
+            try {
+                setReplicaUsable(isLagTolerable());
+                nextLagCheck = System.nanoTime() + properties.getLagCheckInterval().toNanos();
+            } finally {
+                checkingLag.set(false);
+            }
+        }
+        return replicaUsable;
+    }
+
+    private boolean isLagTolerable() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+            boolean measured = resultSet.next();
+            double lagSeconds = measured ? resultSet.getDouble(1) : 0;
+            // NULL when the replica is not receiving from the primary
+            if (!measured || resultSet.wasNull()) {
+                lagSeconds = Double.MAX_VALUE;
+            }
+            boolean tolerable = lagSeconds * 1000 <= properties.getMaxLag().toMillis();
+            if (!tolerable && replicaUsable) {
+                log.warn("Replica is {} s behind, reading from the primary", lagSeconds);
+            }
+            return tolerable;
+        } catch (SQLException e) {
+            if (replicaUsable) {
+                log.warn("Cannot measure replica lag, reading from the primary", e);
+            }
+            return false;
+        }
+    }
+
+    private void setReplicaUsable(boolean usable) {
+        if (usable && !replicaUsable) {
+            log.info("Replica caught up, read-only transactions go to the replica");
+        }
+        replicaUsable = usable;
+    }
+}
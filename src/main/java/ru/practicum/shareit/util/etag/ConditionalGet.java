@@ -0,0 +1,27 @@
+package ru.practicum.shareit.util.etag;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Answers a GET with 304 Not Modified when the client's {@code If-None-Match} matches the cached ETag,
+ * otherwise builds the body and tags it. A tag that turns out to match after the body was built
+ * is also answered with 304 by Spring MVC.
+ */
+public final class ConditionalGet {
+    private ConditionalGet() {
+    }
+
+    public static <T> ResponseEntity<T> respond(WebRequest request, Supplier<String> cachedEtag, Supplier<T> body) {
+        String etag = cachedEtag.get();
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+
+        T value = body.get();
+        etag = cachedEtag.get();
+        return etag == null ? ResponseEntity.ok(value) : ResponseEntity.ok().eTag(etag).body(value);
+    }
+}
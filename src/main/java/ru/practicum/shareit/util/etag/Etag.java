@@ -0,0 +1,28 @@
+package ru.practicum.shareit.util.etag;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Strong entity tag of a response, built from the ids and versions of every entity the response shows.
+ * Two responses get the same tag only when none of those entities changed in between.
+ */
+public class Etag {
+    private final StringBuilder versions = new StringBuilder();
+
+    public Etag add(String kind, Long id, long version) {
+        versions.append(kind).append(':').append(id).append(':').append(version).append(';');
+        return this;
+    }
+
+    public Etag add(String kind, Long id) {
+        versions.append(kind).append(':').append(id).append(';');
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.util.etag;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.util.datasource.ReplicaProperties;
+import ru.practicum.shareit.util.datasource.ReplicaRoutingDataSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last known ETags of responses, so that a conditional GET is answered without loading or mapping anything.
+ * A resource, e.g. {@code items/1}, has one tag per variant, e.g. per user looking at it.
+ * Services put the tag of every response they build and evict resources their writes change.
+ * A tag put by a read that raced with an eviction is dropped, it may describe the old state.
+ * A tag read from a replica may miss a write that was evicted before, so it is kept for max-lag at most.
+ * The tags live in this process only: a write served by another instance or made directly in the database
+ * does not evict them, so every tag is kept for {@code shareit.etag.ttl} at most.
+ */
+@Slf4j
+@Component
+public class EtagCache {
+    private static final int MAX_RESOURCES = 10_000;
+    private static final int MAX_VARIANTS = 100;
+
+    private final ReplicaProperties replicaProperties;
+    private final Duration ttl;
+    private final Counter resourcesFull;
+    private final Counter variantsFull;
+    private final Map<String, Map<String, Entry>> etags = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EtagCache(ReplicaProperties replicaProperties,
+                     @Value("${shareit.etag.ttl:PT1M}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.replicaProperties = replicaProperties;
+        this.ttl = ttl;
+        this.resourcesFull = skippedPuts(meterRegistry, "resources");
+        this.variantsFull = skippedPuts(meterRegistry, "variants");
+    }
+
+    // taken before a read, passed to put
+    public long stamp() {
+        return evictions.get();
+    }
+
+    public String get(String resource, String variant) {
+        Map<String, Entry> variants = etags.get(resource);
+        Entry entry = variants == null ? null : variants.get(variant);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(LocalDateTime.now())) {
+            variants.remove(variant, entry);
+            return null;
+        }
+        return entry.getEtag();
+    }
+
+    // validUntil is the time the response changes by itself, null when only a write changes it
+    public void put(String resource, String variant, Etag etag, LocalDateTime validUntil, long stamp) {
+        if (evictions.get() != stamp) {
+            return;
+        }
+        if (!etags.containsKey(resource) && etags.size() >= MAX_RESOURCES && !removeExpired()) {
+            skipped(resourcesFull, resource);
+            return;
+        }
+        Duration keptFor = ReplicaRoutingDataSource.isCurrentTransactionOnReplica()
+                && replicaProperties.getMaxLag().compareTo(ttl) < 0 ? replicaProperties.getMaxLag() : ttl;
+        LocalDateTime limit = LocalDateTime.now().plus(keptFor);
+        if (validUntil == null || validUntil.isAfter(limit)) {
+            validUntil = limit;
+        }
+        Map<String, Entry> variants = etags.computeIfAbsent(resource, key -> new ConcurrentHashMap<>());
+        if (variants.size() >= MAX_VARIANTS && !variants.containsKey(variant)) {
+            LocalDateTime now = LocalDateTime.now();
+            variants.values().removeIf(expired -> expired.isExpired(now));
+            if (variants.size() >= MAX_VARIANTS) {
+                skipped(variantsFull, resource);
+                return;
+            }
+        }
+        Entry entry = new Entry(etag.toString(), validUntil);
+        variants.put(variant, entry);
+        if (evictions.get() != stamp) {
+            variants.remove(variant, entry);
+        }
+    }
+
+    public void evict(String resource) {
+        afterCompletionToo(() -> {
+            evictions.incrementAndGet();
+            etags.remove(resource);
+        });
+    }
+
+    public void evictAll() {
+        afterCompletionToo(() -> {
+            evictions.incrementAndGet();
+            etags.clear();
+        });
+    }
+
+    // whether that made room for another resource
+    private boolean removeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        etags.values().forEach(variants -> variants.values().removeIf(entry -> entry.isExpired(now)));
+        etags.values().removeIf(Map::isEmpty);
+        return etags.size() < MAX_RESOURCES;
+    }
+
+    // such a response is answered in full every time, the counter shows whether the limits need raising
+    private static void skipped(Counter counter, String resource) {
+        counter.increment();
+        if (counter.count() == 1) {
+            log.warn("ETag cache reached its {} limit at {}, tags beyond it are not kept",
+                    counter.getId().getTag("limit"), resource);
+        }
+    }
+
+    private static Counter skippedPuts(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder("shareit.etag.cache.skipped")
+                .description("ETags not kept because the cache reached its limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    // a concurrent read may put the old tag again until the write commits
+    private static void afterCompletionToo(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final String etag;
+        private final LocalDateTime validUntil;
+
+        boolean isExpired(LocalDateTime now) {
+            return !now.isBefore(validUntil);
+        }
+    }
+}
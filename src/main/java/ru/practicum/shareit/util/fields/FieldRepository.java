@@ -0,0 +1,88 @@
+package ru.practicum.shareit.util.fields;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+public class FieldRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // one row per entity with the selected column fields only, no entity is loaded
+    public <E> List<Map<String, Object>> findAll(Class<E> type,
+                                                 FieldSet<E>.Selection fields,
+                                                 Specification<E> specification,
+                                                 Pageable pageable) {
+        return toRows(fields, findTuples(type, fields, specification, pageable));
+    }
+
+    // the selected columns as read, see FieldSet.Selection#indexOf, for callers that need the raw values too
+    public <E> List<Tuple> findTuples(Class<E> type,
+                                      FieldSet<E>.Selection fields,
+                                      Specification<E> specification,
+                                      Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<E> root = query.from(type);
+
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Selection<?>> columns = new ArrayList<>();
+        fields.getColumns().values().forEach(path -> columns.add(path.apply(root)));
+        query.multiselect(columns)
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    public static <E> List<Map<String, Object>> toRows(FieldSet<E>.Selection fields, List<Tuple> tuples) {
+        List<String> names = new ArrayList<>(fields.getColumns().keySet());
+        return tuples.stream()
+                .map(tuple -> toRow(names, tuple))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> toRow(List<String> names, Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            Object value = tuple.get(i);
+            // formatted like in the DTOs
+            put(row, names.get(i), value instanceof LocalDateTime ? value.toString() : value);
+        }
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> row, String name, Object value) {
+        int dot = name.indexOf('.');
+        if (dot < 0) {
+            row.put(name, value);
+            return;
+        }
+        Map<String, Object> group = (Map<String, Object>) row.computeIfAbsent(name.substring(0, dot),
+                key -> new LinkedHashMap<>());
+        put(group, name.substring(dot + 1), value);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.util.fields;
+
+import ru.practicum.shareit.util.exception.ValidationException;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Fields of a list a client may pick with {@code ?fields=name,item.id}. A column field is read by its own column
+ * of a tuple query, see {@link FieldRepository}, so nothing that was not asked for is selected or loaded.
+ * Other fields, e.g. collections, are filled by the service only when selected.
+ * A dotted field is nested in the response, and the part before the dot selects the whole group.
+ * Key fields are always returned, the next page cursor is built from them.
+ */
+public final class FieldSet<E> {
+    private final Set<String> keys;
+    private final Map<String, Function<Root<E>, Path<?>>> columns = new LinkedHashMap<>();
+    private final Set<String> others = new LinkedHashSet<>();
+
+    public FieldSet(String... keys) {
+        this.keys = Set.of(keys);
+    }
+
+    public FieldSet<E> column(String name, Function<Root<E>, Path<?>> path) {
+        columns.put(name, path);
+        return this;
+    }
+
+    public FieldSet<E> other(String name) {
+        others.add(name);
+        return this;
+    }
+
+    public Selection select(String fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        columns.keySet().stream()
+                .filter(keys::contains)
+                .forEach(selected::add);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (columns.containsKey(name) || others.contains(name)) {
+                selected.add(name);
+                continue;
+            }
+            if (columns.keySet().stream().noneMatch(column -> column.startsWith(name + "."))) {
+                throw new ValidationException("Unknown field: " + name);
+            }
+            columns.keySet().stream()
+                    .filter(column -> column.startsWith(name + "."))
+                    .forEach(selected::add);
+        }
+        return new Selection(selected);
+    }
+
+    public final class Selection {
+        private final Set<String> names;
+
+        private Selection(Set<String> names) {
+            this.names = Collections.unmodifiableSet(names);
+        }
+
+        public boolean contains(String name) {
+            return names.contains(name);
+        }
+
+        public Set<String> getNames() {
+            return names;
+        }
+
+        // position of a selected column field in a tuple of FieldRepository#findTuples
+        public int indexOf(String name) {
+            return new ArrayList<>(getColumns().keySet()).indexOf(name);
+        }
+
+        // the selected column fields in response order
+        Map<String, Function<Root<E>, Path<?>>> getColumns() {
+            Map<String, Function<Root<E>, Path<?>>> selectedColumns = new LinkedHashMap<>();
+            columns.forEach((name, path) -> {
+                if (names.contains(name)) {
+                    selectedColumns.put(name, path);
+                }
+            });
+            return selectedColumns;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package ru.practicum.shareit.util.handler;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.practicum.shareit.util.exception.ConflictException;
 import ru.practicum.shareit.util.exception.NoAccessException;
 import ru.practicum.shareit.util.exception.NotFoundException;
 import ru.practicum.shareit.util.exception.ValidationException;
@@ -32,6 +34,15 @@ public class ErrorHandler {
         return new Error(errorName, errorDescription);
     }
 
+    @ExceptionHandler({ConflictException.class, OptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Error handleConflictException(final Throwable e) {
+        String errorName = "Conflict error";
+        String errorDescription = e.getMessage();
+        log.warn("{}. {}", errorName, errorDescription);
+        return new Error(errorName, errorDescription);
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Error handleThrowable(final Throwable e) {
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.util.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ru.practicum.shareit.util.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads values one by one from a JSON array or from newline-delimited JSON without buffering the whole body.
+ * Malformed input fails with {@link ValidationException} naming the position of the bad value.
+ */
+public final class JsonValues {
+    private JsonValues() {
+    }
+
+    public static <T> Iterator<T> iterate(ObjectReader reader, InputStream input) throws IOException {
+        MappingIterator<T> values = reader.readValues(input);
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    return values.hasNextValue();
+                } catch (JsonProcessingException e) {
+                    throw malformed(e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    T value = values.nextValue();
+                    index++;
+                    return value;
+                } catch (JsonProcessingException e) {
+                    throw malformed(e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            private ValidationException malformed(JsonProcessingException e) {
+                return new ValidationException("Malformed value at index " + index + ": " + e.getOriginalMessage());
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.util.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(StatementBudgetProperties.class)
+public class MetricsConfig {
+    private final StatementCounter statementCounter = new StatementCounter();
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    @Bean
+    public StatementCountFilter statementCountFilter(StatementBudgetProperties budget, MeterRegistry meterRegistry) {
+        return new StatementCountFilter(statementCounter, budget, meterRegistry);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.util.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maximum number of SQL statements a request may execute, by HTTP method and URI pattern,
+ * e.g. {@code shareit.statement-budget.limits.GET[/items]=5}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("shareit.statement-budget")
+public class StatementBudgetProperties {
+    // throw instead of logging, so tests fail on a new N+1
+    private boolean failOnExceed;
+    private double logSampleRate = 0.1;
+    private Map<String, Map<String, Integer>> limits = new HashMap<>();
+
+    public Integer getLimit(String method, String uri) {
+        Map<String, Integer> limitsOfMethod = limits.get(method);
+        return limitsOfMethod == null ? null : limitsOfMethod.get(uri);
+    }
+}
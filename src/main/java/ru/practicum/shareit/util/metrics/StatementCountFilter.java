@@ -0,0 +1,76 @@
+package ru.practicum.shareit.util.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.practicum.shareit.util.exception.StatementBudgetExceededException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records how many SQL statements every request needed, tagged like {@code http.server.requests},
+ * and checks the count against the budget of the endpoint, so a request that starts loading
+ * associations one by one shows up as soon as it happens.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StatementCountFilter extends OncePerRequestFilter {
+    public static final String METRIC_NAME = "hibernate.request.statements";
+    public static final String OVER_BUDGET_METRIC_NAME = "hibernate.request.statements.over.budget";
+
+    private final StatementCounter statementCounter;
+    private final StatementBudgetProperties budget;
+    private final MeterRegistry meterRegistry;
+    // one per endpoint, so that a request only looks its summary up instead of building and registering it
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementCounter.Statements statements;
+        statementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements = statementCounter.stop();
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+        summaries.computeIfAbsent(method + " " + uri, endpoint -> DistributionSummary.builder(METRIC_NAME)
+                        .baseUnit("statements")
+                        .description("SQL statements executed while handling a request")
+                        .tags(tags(method, uri))
+                        .register(meterRegistry))
+                .record(statements.getCount());
+
+        Integer limit = budget.getLimit(method, uri);
+        if (limit != null && statements.getCount() > limit) {
+            meterRegistry.counter(OVER_BUDGET_METRIC_NAME, tags(method, uri)).increment();
+            String message = String.format("%s %s executed %d SQL statements with a budget of %d: %s",
+                    method, uri, statements.getCount(), limit, statements.getSql());
+            if (budget.isFailOnExceed()) {
+                throw new StatementBudgetExceededException(message);
+            }
+            if (ThreadLocalRandom.current().nextDouble() < budget.getLogSampleRate()) {
+                log.warn(message);
+            }
+        }
+    }
+
+    private static Tags tags(String method, String uri) {
+        return Tags.of("method", method, "uri", uri);
+    }
+}
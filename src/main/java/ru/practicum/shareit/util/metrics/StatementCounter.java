@@ -0,0 +1,48 @@
+package ru.practicum.shareit.util.metrics;
+
+import lombok.Getter;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between {@link #start()} and {@link #stop()}.
+ */
+public class StatementCounter implements StatementInspector {
+    private static final int MAX_KEPT_STATEMENTS = 50;
+    private static final ThreadLocal<Statements> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Statements statements = CURRENT.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public void start() {
+        CURRENT.set(new Statements());
+    }
+
+    public Statements stop() {
+        Statements statements = CURRENT.get();
+        CURRENT.remove();
+        return statements == null ? new Statements() : statements;
+    }
+
+    @Getter
+    public static class Statements {
+        private int count;
+        // only the first statements are kept, which is enough to see a repeating one
+        private final List<String> sql = new ArrayList<>();
+
+        private void add(String statement) {
+            count++;
+            if (sql.size() < MAX_KEPT_STATEMENTS) {
+                sql.add(statement);
+            }
+        }
+    }
+}
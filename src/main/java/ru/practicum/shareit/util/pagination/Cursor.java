@@ -0,0 +1,56 @@
+package ru.practicum.shareit.util.pagination;
+
+import lombok.Value;
+import ru.practicum.shareit.util.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page in keyset pagination, passed to clients as an opaque token.
+ * Lists sorted by id only carry the id, lists sorted by a timestamp carry the timestamp and the id.
+ */
+@Value
+public class Cursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "_";
+
+    LocalDateTime timestamp;
+    long id;
+
+    public static Cursor of(long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(LocalDateTime timestamp, long id) {
+        return new Cursor(timestamp, id);
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                return of(Long.parseLong(value));
+            }
+            return of(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor: " + token);
+        }
+    }
+
+    public LocalDateTime getTimestampOrThrow() {
+        if (timestamp == null) {
+            throw new ValidationException("Invalid cursor: timestamp is missing");
+        }
+        return timestamp;
+    }
+
+    public String encode() {
+        String value = timestamp == null ? String.valueOf(id) : timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.util.pagination;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Rows of a page together with the cursor of the following page, built from the last row as it was read.
+ * The cursor is null when the page is not full, i.e. when there is nothing to follow.
+ */
+@Value
+public class CursorPage<T> {
+    List<T> content;
+    Cursor next;
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.util.pagination;
+
+import lombok.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Page of a list, either by offset or, when a cursor is given, the first page following the cursor.
+ */
+@Value
+public class Paging {
+    int from;
+    Cursor after;
+    int size;
+
+    public static Paging offset(int from, int size) {
+        return new Paging(from, null, size);
+    }
+
+    public static Paging after(Cursor after, int size) {
+        return new Paging(0, after, size);
+    }
+
+    // from the request parameters, the cursor wins over the offset
+    public static Paging of(int from, String after, int size) {
+        return after == null ? offset(from, size) : after(Cursor.decode(after), size);
+    }
+
+    public boolean hasCursor() {
+        return after != null;
+    }
+
+    public PageRequest toPageRequest(Sort sort) {
+        return PageRequest.of(from > 0 ? from / size : 0, size, sort);
+    }
+}
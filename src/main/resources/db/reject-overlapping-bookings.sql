@@ -0,0 +1,29 @@
+-- One-off cleanup before bookings_item_id_period_excl can be added, not run by the application.
+-- Of every pair of overlapping WAITING or APPROVED bookings of an item, the later booking is rejected.
+-- Review the pairs the first query lists, then run the whole script: psql -f reject-overlapping-bookings.sql
+
+SELECT e.item_id, e.id AS kept_booking_id, b.id AS rejected_booking_id, b.status AS rejected_status
+FROM bookings b
+         JOIN bookings e ON e.item_id = b.item_id AND e.id < b.id
+WHERE b.status IN ('WAITING', 'APPROVED')
+  AND e.status IN ('WAITING', 'APPROVED')
+  AND e.start_date < b.end_date AND b.start_date < e.end_date
+ORDER BY e.item_id, b.id;
+
+DO '
+DECLARE
+    rejected TEXT;
+BEGIN
+    LOCK TABLE bookings IN SHARE ROW EXCLUSIVE MODE;
+    WITH updated AS (
+        UPDATE bookings b
+        SET status = ''REJECTED'', version = b.version + 1
+        WHERE b.status IN (''WAITING'', ''APPROVED'')
+          AND EXISTS (SELECT 1 FROM bookings e
+                      WHERE e.item_id = b.item_id AND e.id < b.id
+                        AND e.status IN (''WAITING'', ''APPROVED'')
+                        AND e.start_date < b.end_date AND b.start_date < e.end_date)
+        RETURNING b.id)
+    SELECT string_agg(id::TEXT, '', '' ORDER BY id) INTO rejected FROM updated;
+    RAISE NOTICE ''Rejected bookings: %'', COALESCE(rejected, ''none'');
+END';
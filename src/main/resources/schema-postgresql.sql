@@ -0,0 +1,57 @@
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+        GENERATED ALWAYS AS (to_tsvector('simple', name || ' ' || description)) STORED;
+
+DROP INDEX IF EXISTS items_search_vector_idx;
+DROP INDEX IF EXISTS items_available_search_vector_idx;
+
+-- search matches substrings, as ILIKE '%text%', which trigram indexes serve; search_vector only ranks the matches
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS items_available_name_trgm_idx ON items USING GIN (name gin_trgm_ops)
+    WHERE is_available = true;
+CREATE INDEX IF NOT EXISTS items_available_description_trgm_idx ON items USING GIN (description gin_trgm_ops)
+    WHERE is_available = true;
+
+-- optimistic locking, also the source of ETags
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- added once; double bookings made before it existed would fail it. Startup does not touch them: it stops and lists
+-- them, for the operator to resolve, for example with db/reject-overlapping-bookings.sql
+DO '
+DECLARE
+    conflicting TEXT;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''bookings_item_id_period_excl'') THEN
+        LOCK TABLE bookings IN SHARE ROW EXCLUSIVE MODE;
+        SELECT string_agg(b.id::TEXT, '', '' ORDER BY b.id) INTO conflicting
+        FROM bookings b
+        WHERE b.status IN (''WAITING'', ''APPROVED'')
+          AND EXISTS (SELECT 1 FROM bookings e
+                      WHERE e.item_id = b.item_id AND e.id <> b.id
+                        AND e.status IN (''WAITING'', ''APPROVED'')
+                        AND e.start_date < b.end_date AND b.start_date < e.end_date);
+        IF conflicting IS NOT NULL THEN
+            RAISE EXCEPTION ''Cannot add bookings_item_id_period_excl, bookings % overlap. ''
+                ''Resolve them, for example with db/reject-overlapping-bookings.sql, and restart'', conflicting;
+        END IF;
+        ALTER TABLE bookings ADD CONSTRAINT bookings_item_id_period_excl
+            EXCLUDE USING GIST (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+            WHERE (status IN (''WAITING'', ''APPROVED''));
+    END IF;
+END';
+
+-- rows created before the sequences existed took their ids from the identity columns
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM users), (SELECT last_value FROM users_seq)));
+SELECT setval('requests_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 1) FROM requests), (SELECT last_value FROM requests_seq)));
+SELECT setval('items_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM items), (SELECT last_value FROM items_seq)));
+SELECT setval('bookings_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 1) FROM bookings), (SELECT last_value FROM bookings_seq)));
+SELECT setval('comments_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 1) FROM comments), (SELECT last_value FROM comments_seq)));
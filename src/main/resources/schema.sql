@@ -1,8 +1,16 @@
+-- ids come from these sequences in blocks of 50 (Hibernate pooled optimizer), so inserts can be batched
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS users
 (
-    id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    name  VARCHAR(256) NOT NULL,
-    email VARCHAR(512) NOT NULL UNIQUE
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name    VARCHAR(256) NOT NULL,
+    email   VARCHAR(512) NOT NULL UNIQUE,
+    version BIGINT       NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS requests
@@ -10,7 +18,8 @@ CREATE TABLE IF NOT EXISTS requests
     id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     description  VARCHAR(1024) NOT NULL,
     created      TIMESTAMP    NOT NULL,
-    requestor_id BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE
+    requestor_id BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    version      BIGINT       NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS items
@@ -20,7 +29,8 @@ CREATE TABLE IF NOT EXISTS items
     name         VARCHAR(256) NOT NULL,
     description  VARCHAR(512) NOT NULL,
     is_available BOOLEAN      NOT NULL,
-    request_id   BIGINT       REFERENCES requests (id) ON DELETE SET NULL
+    request_id   BIGINT       REFERENCES requests (id) ON DELETE SET NULL,
+    version      BIGINT       NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS bookings
@@ -30,7 +40,8 @@ CREATE TABLE IF NOT EXISTS bookings
     end_date   TIMESTAMP   NOT NULL,
     item_id    BIGINT      NOT NULL REFERENCES items (id) ON DELETE CASCADE,
     booker_id  BIGINT      NOT NULL REFERENCES users (id) ON DELETE CASCADE,
-    status     VARCHAR(64) NOT NULL
+    status     VARCHAR(64) NOT NULL,
+    version    BIGINT      NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS comments
@@ -40,4 +51,22 @@ CREATE TABLE IF NOT EXISTS comments
     item_id BIGINT        NOT NULL REFERENCES items (id) ON DELETE CASCADE,
     user_id BIGINT        NOT NULL REFERENCES users (id) ON DELETE CASCADE,
     created TIMESTAMP     NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS requests_requestor_id_created_idx ON requests (requestor_id, created DESC);
+
+CREATE INDEX IF NOT EXISTS requests_created_idx ON requests (created DESC);
+
+CREATE INDEX IF NOT EXISTS items_owner_id_id_idx ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS items_request_id_idx ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS bookings_booker_id_start_date_idx ON bookings (booker_id, start_date DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_item_id_start_date_idx ON bookings (item_id, start_date DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_item_id_end_date_idx ON bookings (item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS comments_item_id_idx ON comments (item_id);
+
+CREATE INDEX IF NOT EXISTS comments_user_id_idx ON comments (user_id);
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.perf;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.service.ItemAvailabilityIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts the application without the web layer on an in-memory H2 database
+ * and fills it with a generated dataset of the configured size.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+    @Param("1000")
+    public int users;
+    @Param("10")
+    public int itemsPerUser;
+    @Param("20")
+    public int bookingsPerItem;
+    @Param("5")
+    public int requestsPerUser;
+    @Param("3")
+    public int commentsPerItem;
+    @Param("0")
+    public double skew;
+    @Param("0")
+    public int dbLatencyMillis;
+
+    private ConfigurableApplicationContext context;
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void start() {
+        List<String> args = new ArrayList<>(List.of("--spring.datasource.url=jdbc:h2:mem:perf-" + System.nanoTime()));
+        if (dbLatencyMillis > 0) {
+            args.add("--load.db-latency=" + dbLatencyMillis + "ms");
+        }
+        context = PerfApplication.start(WebApplicationType.NONE, args.toArray(new String[0]));
+        dataset = new DatasetGenerator(context.getBean(JdbcTemplate.class), new Random(42))
+                .generate(DatasetSpec.builder()
+                        .users(users)
+                        .itemsPerUser(itemsPerUser)
+                        .bookingsPerItem(bookingsPerItem)
+                        .requestsPerUser(requestsPerUser)
+                        .commentsPerItem(commentsPerItem)
+                        .skew(skew)
+                        .build());
+        context.getBean(ItemAvailabilityIndex.class).reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(dataset.getUsers()) + 1;
+    }
+}
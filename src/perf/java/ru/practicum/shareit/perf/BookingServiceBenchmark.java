@@ -0,0 +1,56 @@
+package ru.practicum.shareit.perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingView;
+import ru.practicum.shareit.util.pagination.Paging;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking lists of a random booker or item owner, filtered by state in the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingServiceBenchmark {
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    public String state;
+    @Param("20")
+    public int size;
+
+    private BookingService bookingService;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        bookingService = application.getBean(BookingService.class);
+    }
+
+    @Benchmark
+    public List<BookingDto> getAllByUser(ApplicationState application) {
+        return bookingService.getAll(application.randomUserId(), BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, size)).getContent();
+    }
+
+    @Benchmark
+    public List<BookingDto> getAllByItemOwner(ApplicationState application) {
+        return bookingService.getAll(application.randomUserId(), BookingRole.ITEM_OWNER, state,
+                BookingView.FULL, Paging.offset(0, size)).getContent();
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.perf;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * Sizes of a generated dataset. Ids of every table run from 1 to the corresponding count.
+ */
+@Value
+public class Dataset {
+    long users;
+    long items;
+    long requests;
+    long bookings;
+    @Getter(AccessLevel.NONE)
+    long[] itemOwnerIds;
+    @Getter(AccessLevel.NONE)
+    boolean[] itemAvailability;
+
+    public long getOwnerId(long itemId) {
+        return itemOwnerIds[(int) itemId - 1];
+    }
+
+    public boolean isAvailable(long itemId) {
+        return itemAvailability[(int) itemId - 1];
+    }
+}
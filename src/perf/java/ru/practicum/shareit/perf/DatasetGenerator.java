@@ -0,0 +1,143 @@
+package ru.practicum.shareit.perf;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the ShareIt tables with synthetic rows through plain JDBC batches.
+ * Ids are assigned here, so callers can pick existing users and items by number without querying.
+ * With a skewed spec the lowest user ids own the most items and the lowest item ids
+ * have the longest booking histories.
+ */
+@RequiredArgsConstructor
+public class DatasetGenerator {
+    private static final int BATCH_SIZE = 1_000;
+    private static final BookingStatus[] STATUSES = {
+            BookingStatus.APPROVED, BookingStatus.APPROVED, BookingStatus.APPROVED,
+            BookingStatus.WAITING, BookingStatus.REJECTED
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+
+    public Dataset generate(DatasetSpec spec) {
+        LocalDateTime now = LocalDateTime.now();
+        int users = spec.getUsers();
+
+        Batch userBatch = new Batch("INSERT INTO users (id, name, email) VALUES (?, ?, ?)");
+        for (long id = 1; id <= users; id++) {
+            userBatch.add(id, "user" + id, "user" + id + "@example.com");
+        }
+        userBatch.flush();
+
+        long requests = (long) users * spec.getRequestsPerUser();
+        Batch requestBatch = new Batch("INSERT INTO requests (id, description, created, requestor_id) " +
+                "VALUES (?, ?, ?, ?)");
+        for (long id = 1; id <= requests; id++) {
+            long requestorId = (id - 1) / spec.getRequestsPerUser() + 1;
+            requestBatch.add(id, "Need something #" + id,
+                    Timestamp.valueOf(now.minusMinutes(random.nextInt(60 * 24 * 90))), requestorId);
+        }
+        requestBatch.flush();
+
+        int items = users * spec.getItemsPerUser();
+        long[] itemOwnerIds = new long[items];
+        boolean[] itemAvailability = new boolean[items];
+        ZipfDistribution owners = new ZipfDistribution(users, spec.getSkew());
+        Batch itemBatch = new Batch("INSERT INTO items (id, owner_id, name, description, is_available, request_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)");
+        for (int id = 1; id <= items; id++) {
+            long ownerId = spec.getSkew() > 0 ? owners.sample(random) : (id - 1) / spec.getItemsPerUser() + 1;
+            boolean available = random.nextInt(5) > 0;
+            Long requestId = requests > 0 && random.nextInt(10) == 0 ? randomId(requests) : null;
+            itemOwnerIds[id - 1] = ownerId;
+            itemAvailability[id - 1] = available;
+            itemBatch.add(id, ownerId, "Item #" + id, "Tool number " + id, available, requestId);
+        }
+        itemBatch.flush();
+
+        long totalBookings = (long) items * spec.getBookingsPerItem();
+        ZipfDistribution hotItems = new ZipfDistribution(items, spec.getSkew());
+        Batch bookingBatch = new Batch("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?)");
+        long bookingId = 1;
+        for (long itemId = 1; itemId <= items; itemId++) {
+            long ownerId = itemOwnerIds[(int) itemId - 1];
+            long bookings = Math.round(totalBookings * hotItems.probability(itemId));
+            // consecutive bookings of an item running from the past into the future, so every state has rows
+            LocalDateTime start = now.minusDays(bookings);
+            for (int i = 0; i < bookings; i++) {
+                LocalDateTime end = start.plusHours(1 + random.nextInt(36));
+                bookingBatch.add(bookingId++, Timestamp.valueOf(start), Timestamp.valueOf(end), itemId,
+                        otherUser(users, ownerId), STATUSES[random.nextInt(STATUSES.length)].name());
+                start = end.plusHours(random.nextInt(24));
+            }
+        }
+        bookingBatch.flush();
+
+        Batch commentBatch = new Batch("INSERT INTO comments (id, text, item_id, user_id, created) " +
+                "VALUES (?, ?, ?, ?, ?)");
+        long commentId = 1;
+        for (long itemId = 1; itemId <= items; itemId++) {
+            long ownerId = itemOwnerIds[(int) itemId - 1];
+            for (int i = 0; i < spec.getCommentsPerItem(); i++) {
+                commentBatch.add(commentId++, "Comment #" + i, itemId, otherUser(users, ownerId),
+                        Timestamp.valueOf(now.minusDays(random.nextInt(90))));
+            }
+        }
+        commentBatch.flush();
+
+        restartSequence("users_seq", users);
+        restartSequence("requests_seq", requests);
+        restartSequence("items_seq", items);
+        restartSequence("bookings_seq", bookingId - 1);
+        restartSequence("comments_seq", commentId - 1);
+
+        return new Dataset(users, items, requests, bookingId - 1, itemOwnerIds, itemAvailability);
+    }
+
+    // rows were inserted with explicit ids, so new rows created through the API must start after them;
+    // the pooled optimizer reads a sequence value as the last id of a block of 50
+    private void restartSequence(String sequence, long lastId) {
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (lastId + 50));
+    }
+
+    private long otherUser(int users, long userId) {
+        if (users < 2) {
+            return userId;
+        }
+        long otherId = randomId(users - 1);
+        return otherId >= userId ? otherId + 1 : otherId;
+    }
+
+    private long randomId(long count) {
+        return 1 + (long) (random.nextDouble() * count);
+    }
+
+    @RequiredArgsConstructor
+    private class Batch {
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+}
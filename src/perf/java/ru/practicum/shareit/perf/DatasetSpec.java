@@ -0,0 +1,26 @@
+package ru.practicum.shareit.perf;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Size and shape of a generated dataset. The per-user and per-item counts are averages:
+ * with a positive skew items go mostly to a few owners and bookings mostly to a few hot items,
+ * following a Zipf distribution with the skew as its exponent.
+ */
+@Value
+@Builder
+public class DatasetSpec {
+    @Builder.Default
+    int users = 1000;
+    @Builder.Default
+    int itemsPerUser = 10;
+    @Builder.Default
+    int bookingsPerItem = 20;
+    @Builder.Default
+    int requestsPerUser = 5;
+    @Builder.Default
+    int commentsPerItem = 3;
+    @Builder.Default
+    double skew = 0;
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rows written per second when a burst of new rows is saved in one transaction.
+ * Run with {@code -p dbLatencyMillis=1} to see what every round trip to a remote database costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(InsertBenchmark.ROWS)
+public class InsertBenchmark {
+    static final int ROWS = 100;
+
+    private static final List<String> TABLES = List.of("bookings", "items", "users");
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> lastIds = new HashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private UserRepository userRepository;
+    private BookingRepository bookingRepository;
+    private ItemService itemService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        transactionTemplate = application.getBean(TransactionTemplate.class);
+        entityManager = application.getBean(EntityManager.class);
+        userRepository = application.getBean(UserRepository.class);
+        bookingRepository = application.getBean(BookingRepository.class);
+        itemService = application.getBean(ItemService.class);
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+        for (String table : TABLES) {
+            lastIds.put(table, jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class));
+        }
+    }
+
+    // every iteration starts from the generated dataset, otherwise later iterations insert into ever larger tables
+    @TearDown(Level.Iteration)
+    public void deleteInserted() {
+        for (String table : TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE id > ?", lastIds.get(table));
+        }
+    }
+
+    @Benchmark
+    public List<User> saveUsers() {
+        List<User> users = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            long number = sequence.incrementAndGet();
+            users.add(new User(null, "user" + number, "bench" + number + "@example.com"));
+        }
+        return transactionTemplate.execute(status -> userRepository.saveAll(users));
+    }
+
+    @Benchmark
+    public List<Booking> saveBookings(ApplicationState application) {
+        long itemId = ThreadLocalRandom.current().nextLong(application.getDataset().getItems()) + 1;
+        long bookerId = application.randomUserId();
+        LocalDateTime start = LocalDateTime.now().plusYears(1).plusDays(sequence.getAndAdd(ROWS));
+        return transactionTemplate.execute(status -> {
+            List<Booking> bookings = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                Booking booking = new Booking();
+                booking.setStart(start.plusDays(i));
+                booking.setEnd(start.plusDays(i).plusHours(12));
+                booking.setItem(entityManager.getReference(Item.class, itemId));
+                booking.setBooker(entityManager.getReference(User.class, bookerId));
+                booking.setStatus(BookingStatus.WAITING);
+                bookings.add(booking);
+            }
+            return bookingRepository.saveAll(bookings);
+        });
+    }
+
+    @Benchmark
+    public ItemBatchResultDto importItems(ApplicationState application) {
+        List<ItemDto> items = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            items.add(ItemDto.builder()
+                    .name("Imported tool")
+                    .description("Tool from a bulk import")
+                    .available(true)
+                    .build());
+        }
+        return itemService.createAll(application.randomUserId(), items.iterator());
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.perf;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Latencies of every request grouped by endpoint, kept in full so percentiles are exact.
+ */
+public class LatencyStats {
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+
+    public void record(String endpoint, long nanos, boolean success) {
+        endpoints.computeIfAbsent(endpoint, name -> new Endpoint()).record(nanos, success);
+    }
+
+    public void print(PrintStream out, double seconds) {
+        out.printf("%-28s %10s %8s %12s %10s %10s %10s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50, ms", "p99, ms", "max, ms");
+        long total = 0;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            long[] latencies = entry.getValue().sorted();
+            total += latencies.length;
+            out.printf("%-28s %10d %8d %12.1f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(),
+                    latencies.length,
+                    entry.getValue().errors(),
+                    latencies.length / seconds,
+                    percentile(latencies, 0.50),
+                    percentile(latencies, 0.99),
+                    percentile(latencies, 1.0));
+        }
+        out.printf("%-28s %10d %8s %12.1f%n", "Total", total, "", total / seconds);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = Math.max((int) Math.ceil(quantile * sorted.length) - 1, 0);
+        return sorted[index] / 1_000_000.0;
+    }
+
+    private static class Endpoint {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void record(long nanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.util.pagination.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item and request lists of a random user, with offset and cursor pagination.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ListServiceBenchmark {
+    // requests are listed newest first, so a cursor from the future points at the first page
+    private static final Cursor FIRST_REQUEST_PAGE = Cursor.of(LocalDateTime.now().plusYears(1), Long.MAX_VALUE);
+
+    @Param("20")
+    public int size;
+
+    private ItemService itemService;
+    private RequestService requestService;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        itemService = application.getBean(ItemService.class);
+        requestService = application.getBean(RequestService.class);
+    }
+
+    @Benchmark
+    public List<ItemDto> getItemsByOwner(ApplicationState application) {
+        return itemService.getAllByOwnerId(application.randomUserId(), 0, size);
+    }
+
+    @Benchmark
+    public List<ItemDto> getItemsByOwnerAfterCursor(ApplicationState application) {
+        return itemService.getAllByOwnerId(application.randomUserId(), Cursor.of(0L), size);
+    }
+
+    @Benchmark
+    public List<ItemDto> searchItems(ApplicationState application) {
+        return itemService.getAllBySubstring(application.randomUserId(), "tool", 0, size);
+    }
+
+    @Benchmark
+    public List<RequestDto> getRequestsByUser(ApplicationState application) {
+        return requestService.getAllByUser(application.randomUserId());
+    }
+
+    @Benchmark
+    public List<RequestDto> getRequestsOfOthers(ApplicationState application) {
+        return requestService.getAll(application.randomUserId(), 0, size);
+    }
+
+    @Benchmark
+    public List<RequestDto> getRequestsOfOthersAfterCursor(ApplicationState application) {
+        return requestService.getAll(application.randomUserId(), FIRST_REQUEST_PAGE, size);
+    }
+}
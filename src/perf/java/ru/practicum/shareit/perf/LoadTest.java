@@ -0,0 +1,79 @@
+package ru.practicum.shareit.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.service.ItemAvailabilityIndex;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Starts the application on a random port, fills the database with a skewed dataset and drives
+ * the item, booking and request endpoints with a fixed number of client threads.
+ * Settings are read as {@code --load.*} arguments, every other argument goes to the application,
+ * e.g. {@code --spring.profiles.active=default} runs against the PostgreSQL database from application.properties.
+ */
+public final class LoadTest {
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        try (ConfigurableApplicationContext context = PerfApplication.start(WebApplicationType.SERVLET,
+                appendIfAbsent(args, "--server.port=0"))) {
+            Environment environment = context.getEnvironment();
+            DatasetSpec defaults = DatasetSpec.builder().build();
+            DatasetSpec spec = DatasetSpec.builder()
+                    .users(environment.getProperty("load.users", Integer.class, defaults.getUsers()))
+                    .itemsPerUser(environment.getProperty("load.items-per-user", Integer.class,
+                            defaults.getItemsPerUser()))
+                    .bookingsPerItem(environment.getProperty("load.bookings-per-item", Integer.class,
+                            defaults.getBookingsPerItem()))
+                    .requestsPerUser(environment.getProperty("load.requests-per-user", Integer.class,
+                            defaults.getRequestsPerUser()))
+                    .commentsPerItem(environment.getProperty("load.comments-per-item", Integer.class,
+                            defaults.getCommentsPerItem()))
+                    .skew(environment.getProperty("load.skew", Double.class, 1.0))
+                    .build();
+            int threads = environment.getProperty("load.threads", Integer.class, 8);
+            Duration warmup = environment.getProperty("load.warmup", Duration.class, Duration.ofSeconds(10));
+            Duration duration = environment.getProperty("load.duration", Duration.class, Duration.ofSeconds(60));
+            long seed = environment.getProperty("load.seed", Long.class, 42L);
+
+            System.out.println("Generating dataset " + spec);
+            Dataset dataset = new DatasetGenerator(context.getBean(JdbcTemplate.class), new Random(seed))
+                    .generate(spec);
+            // the rows went in behind the services' back
+            context.getBean(ItemAvailabilityIndex.class).reload();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Workload workload = new Workload(URI.create("http://localhost:" + port),
+                    context.getBean(ObjectMapper.class), dataset, spec.getSkew());
+
+            System.out.printf("Warming up for %s with %d threads%n", warmup, threads);
+            workload.run(threads, warmup, new LatencyStats());
+
+            System.out.printf("Measuring for %s with %d threads%n", duration, threads);
+            LatencyStats stats = new LatencyStats();
+            workload.run(threads, duration, stats);
+            stats.print(System.out, duration.toMillis() / 1000.0);
+        }
+    }
+
+    private static String[] appendIfAbsent(String[] args, String argument) {
+        String name = argument.substring(0, argument.indexOf('=') + 1);
+        for (String arg : args) {
+            if (arg.startsWith(name)) {
+                return args;
+            }
+        }
+        String[] arguments = Arrays.copyOf(args, args.length + 1);
+        arguments[args.length] = argument;
+        return arguments;
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.CommentMapper;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.request.mapper.RequestMapper;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps detached entity graphs, so only the mapping itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"0", "10"})
+    public int commentsPerItem;
+    @Param({"0", "10"})
+    public int itemsPerRequest;
+
+    private ItemMapper itemMapper;
+    private BookingMapper bookingMapper;
+    private RequestMapper requestMapper;
+
+    private Item item;
+    private Booking booking;
+    private Request request;
+
+    @Setup
+    public void setUp() {
+        itemMapper = new ItemMapper(new CommentMapper());
+        bookingMapper = new BookingMapper(itemMapper, new UserMapper());
+        requestMapper = new RequestMapper(itemMapper);
+
+        LocalDateTime now = LocalDateTime.now();
+        User owner = new User(1L, "John", "john@example.com");
+        User booker = new User(2L, "Danny", "danny@example.com");
+
+        request = new Request();
+        request.setId(1L);
+        request.setDescription("Need a hammer");
+        request.setRequestor(booker);
+        request.setCreated(now);
+
+        item = newItem(1L, owner, request, booker, now);
+        for (long id = 2; id <= itemsPerRequest; id++) {
+            request.getItems().add(newItem(id, owner, request, booker, now));
+        }
+        if (itemsPerRequest > 0) {
+            request.getItems().add(0, item);
+        }
+
+        booking = new Booking();
+        booking.setId(1L);
+        booking.setStart(now.plusDays(1));
+        booking.setEnd(now.plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+    }
+
+    @Benchmark
+    public ItemDto toItemDto() {
+        return itemMapper.toItemDto(item);
+    }
+
+    @Benchmark
+    public BookingDto toBookingDto() {
+        return bookingMapper.toBookingDto(booking);
+    }
+
+    @Benchmark
+    public RequestDto toRequestDto() {
+        return requestMapper.toRequestDto(request);
+    }
+
+    private Item newItem(long id, User owner, Request request, User author, LocalDateTime now) {
+        Item newItem = new Item();
+        newItem.setId(id);
+        newItem.setOwner(owner);
+        newItem.setName("Hammer #" + id);
+        newItem.setDescription("Handy tool");
+        newItem.setAvailable(true);
+        newItem.setRequest(request);
+        for (long commentId = 1; commentId <= commentsPerItem; commentId++) {
+            Comment comment = new Comment();
+            comment.setId(id * commentsPerItem + commentId);
+            comment.setText("Great hammer");
+            comment.setItem(newItem);
+            comment.setUser(author);
+            comment.setCreated(now.minusDays(commentId));
+            newItem.getComments().add(comment);
+        }
+        return newItem;
+    }
+}
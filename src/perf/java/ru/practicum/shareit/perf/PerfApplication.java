@@ -0,0 +1,41 @@
+package ru.practicum.shareit.perf;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts the application for a benchmark run: on the H2 test profile unless another profile is given
+ * with the per-request transaction logging turned down and statement budgets only reported.
+ */
+public final class PerfApplication {
+    private static final List<String> QUIET_LOGGING = List.of(
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework=WARN",
+            "--logging.level.org.springframework.transaction.interceptor=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "--logging.level.ru.practicum.shareit=WARN",
+            // statements over budget are reported, not failed, even on the test profile
+            "--shareit.statement-budget.fail-on-exceed=false");
+
+    private PerfApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... args) {
+        // passed as arguments to take precedence over application.properties
+        List<String> arguments = new ArrayList<>(QUIET_LOGGING);
+        if (Arrays.stream(args).noneMatch(arg -> arg.startsWith("--spring.profiles.active="))) {
+            arguments.add("--spring.profiles.active=test");
+        }
+        arguments.addAll(Arrays.asList(args));
+
+        return new SpringApplicationBuilder(ShareItApp.class)
+                .web(webApplicationType)
+                .run(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.perf;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Adds a fixed round trip to every statement the application prepares, so an in-memory database
+ * behaves like a remote one and request threads spend their time waiting, as they do in production.
+ * Enabled by {@code --load.db-latency=5ms}.
+ */
+@Configuration
+@ConditionalOnProperty("load.db-latency")
+public class SlowDatabaseConfig {
+
+    @Bean
+    public static BeanPostProcessor slowDataSourcePostProcessor(@Value("${load.db-latency}") Duration latency) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ? new SlowDataSource((DataSource) bean, latency) : bean;
+            }
+        };
+    }
+
+    private static class SlowDataSource extends DelegatingDataSource {
+        private final Duration latency;
+
+        SlowDataSource(DataSource dataSource, Duration latency) {
+            super(dataSource);
+            this.latency = latency;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                            Thread.sleep(latency.toMillis());
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
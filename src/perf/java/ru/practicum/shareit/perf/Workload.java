@@ -0,0 +1,209 @@
+package ru.practicum.shareit.perf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.request.dto.CreationRequestDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A weighted mix of item, booking and request calls against a running application.
+ * Owners and items are picked with the same skew as the dataset, so the busiest owners
+ * and the hottest items get most of the traffic.
+ */
+public class Workload {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final String[] STATES = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"};
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final Dataset dataset;
+    private final ZipfDistribution hotUsers;
+    private final ZipfDistribution hotItems;
+    private final List<Operation> operations;
+    private final int totalWeight;
+    // bookings created during the run, waiting for their owner to approve them
+    private final Queue<long[]> waitingBookings = new ConcurrentLinkedQueue<>();
+
+    public Workload(URI baseUri, ObjectMapper objectMapper, Dataset dataset, double skew) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.dataset = dataset;
+        this.hotUsers = new ZipfDistribution((int) dataset.getUsers(), skew);
+        this.hotItems = new ZipfDistribution((int) dataset.getItems(), skew);
+        this.operations = List.of(
+                new Operation("GET /items", 15, random ->
+                        get("/items?size=20", hotUsers.sample(random))),
+                new Operation("GET /items/{id}", 20, this::getItem),
+                new Operation("GET /items/available", 5, this::getFreeItems),
+                new Operation("GET /items/search", 10, random ->
+                        get("/items/search?size=20&text=number+" + random.nextInt(100), randomUser(random))),
+                new Operation("GET /bookings", 10, random ->
+                        get("/bookings?size=20&state=" + STATES[random.nextInt(STATES.length)], randomUser(random))),
+                new Operation("GET /bookings/owner", 10, random ->
+                        get("/bookings/owner?size=20&state=" + STATES[random.nextInt(STATES.length)],
+                                hotUsers.sample(random))),
+                new Operation("POST /bookings", 5, this::createBooking, this::bookingCreated),
+                new Operation("PATCH /bookings/{id}", 5, this::approveBooking),
+                new Operation("GET /requests", 10, random ->
+                        get("/requests", randomUser(random))),
+                new Operation("GET /requests/all", 10, random ->
+                        get("/requests/all?size=20", randomUser(random))),
+                new Operation("GET /requests/{id}", 5, random ->
+                        get("/requests/" + (random.nextInt((int) dataset.getRequests()) + 1), randomUser(random))),
+                new Operation("POST /requests", 5, random ->
+                        post("/requests", randomUser(random), new CreationRequestDto("Need a tool")))
+        );
+        this.totalWeight = operations.stream().mapToInt(operation -> operation.weight).sum();
+    }
+
+    public void run(int threads, Duration duration, LatencyStats stats) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    call(pick(ThreadLocalRandom.current()), stats);
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void call(Operation operation, LatencyStats stats) {
+        HttpRequest request = operation.request.apply(ThreadLocalRandom.current());
+        if (request == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            boolean success = response.statusCode() < 400;
+            stats.record(operation.name, System.nanoTime() - start, success);
+            if (success) {
+                operation.completed.accept(response.body());
+            }
+        } catch (IOException e) {
+            stats.record(operation.name, System.nanoTime() - start, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Operation pick(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            value -= operation.weight;
+            if (value < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Operation weights changed");
+    }
+
+    // owners look at their own items as often as everybody else, and only they see the bookings
+    private HttpRequest getItem(Random random) {
+        long itemId = hotItems.sample(random);
+        return get("/items/" + itemId, random.nextBoolean() ? dataset.getOwnerId(itemId) : randomUser(random));
+    }
+
+    private HttpRequest getFreeItems(Random random) {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).plusDays(1 + random.nextInt(30));
+        return get("/items/available?size=20&start=" + start + "&end=" + start.plusDays(2), hotUsers.sample(random));
+    }
+
+    private HttpRequest createBooking(Random random) {
+        long itemId = hotItems.sample(random);
+        if (!dataset.isAvailable(itemId)) {
+            return null;
+        }
+        long bookerId = randomUser(random);
+        if (bookerId == dataset.getOwnerId(itemId)) {
+            return null;
+        }
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1 + random.nextInt(30));
+        return post("/bookings", bookerId, new CreationBookingDto(itemId, start.toString(),
+                start.plusDays(1 + random.nextInt(3)).toString()));
+    }
+
+    private void bookingCreated(String body) {
+        try {
+            JsonNode booking = objectMapper.readTree(body);
+            waitingBookings.add(new long[]{booking.get("id").asLong(), booking.get("item").get("ownerId").asLong()});
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpRequest approveBooking(Random random) {
+        long[] booking = waitingBookings.poll();
+        if (booking == null) {
+            return null;
+        }
+        return HttpRequest.newBuilder(baseUri.resolve("/bookings/" + booking[0] + "?approved=" + random.nextBoolean()))
+                .header(USER_HEADER, String.valueOf(booking[1]))
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private long randomUser(Random random) {
+        return random.nextInt((int) dataset.getUsers()) + 1;
+    }
+
+    private HttpRequest get(String path, long userId) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header(USER_HEADER, String.valueOf(userId))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, long userId, Object body) {
+        try {
+            return HttpRequest.newBuilder(baseUri.resolve(path))
+                    .header(USER_HEADER, String.valueOf(userId))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Operation {
+        private final String name;
+        private final int weight;
+        private final Function<Random, HttpRequest> request;
+        private final Consumer<String> completed;
+
+        Operation(String name, int weight, Function<Random, HttpRequest> request) {
+            this(name, weight, request, body -> {
+            });
+        }
+    }
+}
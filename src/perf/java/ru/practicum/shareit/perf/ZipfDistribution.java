@@ -0,0 +1,35 @@
+package ru.practicum.shareit.perf;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Ranks from 1 to n where rank k is drawn with probability proportional to 1 / k^exponent.
+ * An exponent of 0 gives the uniform distribution, around 1 a few ranks take most of the draws.
+ */
+public class ZipfDistribution {
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public long sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index + 1 : -index;
+        return Math.min(rank, cumulative.length);
+    }
+
+    public double probability(long rank) {
+        int index = (int) rank - 1;
+        return index == 0 ? cumulative[0] : cumulative[index] - cumulative[index - 1];
+    }
+}
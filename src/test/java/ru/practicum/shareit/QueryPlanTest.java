@@ -0,0 +1,271 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.pagination.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.afterCursor;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.hasBooker;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.hasItemOwner;
+
+/**
+ * Runs EXPLAIN on the SQL that Hibernate actually sends for the hot repository queries
+ * and fails when one of them falls back to a full table scan.
+ * H2 creates its own index for every foreign key, so lookups by a foreign key column
+ * are checked by column rather than by the name of the index from schema.sql.
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.shareit.QueryPlanTest$CapturingStatementInspector")
+class QueryPlanTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private RequestRepository requestRepository;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private Request request;
+
+    @BeforeEach
+    public void addData() {
+        owner = userRepository.save(new User(null, "John", "john@example.com"));
+        booker = userRepository.save(new User(null, "Danny", "danny@example.com"));
+
+        request = new Request();
+        request.setDescription("Need a hammer");
+        request.setRequestor(booker);
+        requestRepository.save(request);
+
+        item = new Item();
+        item.setOwner(owner);
+        item.setName("Hammer");
+        item.setDescription("Handy tool");
+        item.setAvailable(true);
+        item.setRequest(request);
+        itemRepository.save(item);
+
+        Booking booking = new Booking();
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(booking);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void schema_whenInitialized_thenDeclaredIndexesCreated() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES", String.class);
+
+        assertTrue(indexes.containsAll(List.of(
+                "requests_requestor_id_created_idx",
+                "requests_created_idx",
+                "items_owner_id_id_idx",
+                "items_request_id_idx",
+                "bookings_booker_id_start_date_idx",
+                "bookings_item_id_start_date_idx",
+                "bookings_item_id_end_date_idx",
+                "comments_item_id_idx",
+                "comments_user_id_idx")), indexes.toString());
+    }
+
+    @Test
+    void findAllByOwner_whenExplained_thenOwnerIndexUsed() {
+        String plan = explainFirstStatementOf(() ->
+                itemRepository.findAllByOwner(owner, PageRequest.of(0, 10, Sort.by("id"))));
+
+        assertIndexLookup(plan, "OWNER_ID");
+    }
+
+    @Test
+    void findAllByOwnerIdAfter_whenExplained_thenOwnerIndexUsed() {
+        String plan = explainFirstStatementOf(() ->
+                itemRepository.findAllByOwnerIdAfter(owner.getId(), 0L, PageRequest.of(0, 10)));
+
+        assertIndexLookup(plan, "OWNER_ID");
+    }
+
+    @Test
+    void findAllByRequestor_whenExplained_thenRequestorIndexUsed() {
+        String plan = explainFirstStatementOf(() ->
+                requestRepository.findAllByRequestor(booker, Sort.by(Sort.Direction.DESC, "created")));
+
+        assertIndexLookup(plan, "REQUESTOR_ID");
+    }
+
+    @Test
+    void findAll_whenRequestsExplained_thenCreatedIndexUsedForSorting() {
+        String plan = explainFirstStatementOf(() ->
+                requestRepository.findAll(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "created"))));
+
+        assertFalse(plan.contains(".tableScan"), plan);
+        assertTrue(plan.contains("REQUESTS_CREATED_IDX"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void findList_whenBookingsOfBookerExplained_thenBookerIndexUsed() {
+        String plan = explainFirstStatementOf(() ->
+                bookingRepository.findList(hasBooker(booker.getId()), PageRequest.of(0, 10)));
+
+        assertIndexLookup(plan, "BOOKER_ID");
+    }
+
+    @Test
+    void findList_whenBookingsOfBookerAfterCursorExplained_thenBookerIndexUsed() {
+        Cursor cursor = Cursor.of(LocalDateTime.now(), 1L);
+
+        String plan = explainFirstStatementOf(() ->
+                bookingRepository.findList(hasBooker(booker.getId()).and(afterCursor(cursor)),
+                        PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "start", "id"))));
+
+        assertIndexLookup(plan, "BOOKER_ID");
+    }
+
+    @Test
+    void findList_whenBookingsOfItemOwnerExplained_thenOwnerAndItemIndexesUsed() {
+        String plan = explainFirstStatementOf(() ->
+                bookingRepository.findList(hasItemOwner(owner.getId()), PageRequest.of(0, 10)));
+
+        assertIndexLookup(plan, "OWNER_ID");
+        assertIndexLookup(plan, "ITEM_ID");
+    }
+
+    @Test
+    void findCompactList_whenBookingsOfItemOwnerExplained_thenItemsJoinedOnceByIndex() {
+        String plan = explainFirstStatementOf(() ->
+                bookingRepository.findCompactList(hasItemOwner(owner.getId()), PageRequest.of(0, 10)));
+
+        assertIndexLookup(plan, "OWNER_ID");
+        assertIndexLookup(plan, "ITEM_ID");
+        assertEquals(1, Pattern.compile("\"PUBLIC\"\\.\"ITEMS\"").matcher(plan).results().count(), plan);
+    }
+
+    @Test
+    void streamAllByItemOwnerId_whenExplained_thenOwnerAndItemIndexesUsed() {
+        String plan = explainFirstStatementOf(() -> {
+            try (Stream<?> bookings = bookingRepository.streamAllByItemOwnerId(owner.getId())) {
+                bookings.forEach(booking -> {
+                });
+            }
+        });
+
+        assertIndexLookup(plan, "OWNER_ID");
+        assertIndexLookup(plan, "ITEM_ID");
+    }
+
+    @Test
+    void findLastAndNextByItemIds_whenExplained_thenItemIndexUsed() {
+        String plan = explainFirstStatementOf(() ->
+                bookingRepository.findLastAndNextByItemIds(List.of(item.getId()), LocalDateTime.now()));
+
+        assertIndexLookup(plan, "ITEM_ID");
+    }
+
+    @Test
+    void findLastAndNextByItemId_whenExplained_thenItemIndexUsed() {
+        String plan = explainFirstStatementOf(() ->
+                bookingRepository.findLastAndNextByItemId(item.getId(), LocalDateTime.now()));
+
+        assertIndexLookup(plan, "ITEM_ID");
+    }
+
+    @Test
+    void existsOverlapping_whenExplained_thenItemIndexUsed() {
+        LocalDateTime start = LocalDateTime.now();
+
+        String plan = explainFirstStatementOf(() ->
+                bookingRepository.existsOverlapping(item.getId(), start, start.plusDays(1)));
+
+        assertFalse(plan.contains(".tableScan"), plan);
+        assertTrue(Pattern.compile("/\\* PUBLIC\\.BOOKINGS_ITEM_ID_\\w+_IDX: [^*]*ITEM_ID = ").matcher(plan).find(), plan);
+    }
+
+    @Test
+    void existsByBookerIdAndItemId_whenExplained_thenIndexUsed() {
+        String plan = explainFirstStatementOf(() ->
+                bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(
+                        booker.getId(), item.getId(), BookingStatus.APPROVED, LocalDateTime.now()));
+
+        assertFalse(plan.contains(".tableScan"), plan);
+    }
+
+    @Test
+    void getComments_whenExplained_thenItemIndexUsed() {
+        Item persistedItem = entityManager.find(Item.class, item.getId());
+
+        String plan = explainFirstStatementOf(() -> persistedItem.getComments().size());
+
+        assertIndexLookup(plan, "ITEM_ID");
+    }
+
+    @Test
+    void getItems_whenRequestItemsExplained_thenRequestIndexUsed() {
+        Request persistedRequest = entityManager.find(Request.class, request.getId());
+
+        String plan = explainFirstStatementOf(() -> persistedRequest.getItems().size());
+
+        assertIndexLookup(plan, "REQUEST_ID");
+    }
+
+    private String explainFirstStatementOf(Runnable query) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        query.run();
+
+        assertFalse(CapturingStatementInspector.STATEMENTS.isEmpty(), "No statement was executed");
+        return jdbcTemplate.queryForObject("EXPLAIN " + CapturingStatementInspector.STATEMENTS.get(0), String.class);
+    }
+
+    private static void assertIndexLookup(String plan, String column) {
+        assertFalse(plan.contains(".tableScan"), plan);
+        assertTrue(Pattern.compile("/\\* PUBLIC\\.\\w+: " + column + " (=|IN)").matcher(plan).find(), plan);
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.CreationRequestDto;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Works on committed data, because entities loaded inside a transaction that wrote them
+ * are not put into the second-level cache.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private RequestService requestService;
+
+    private Statistics statistics;
+    private UserDto owner;
+    private ItemDto item;
+
+    @BeforeEach
+    public void addData() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        owner = userService.create(new UserDto(null, "John", "john.cached@example.com"));
+        item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Hammer")
+                .description("Handy tool")
+                .available(true)
+                .build());
+    }
+
+    @AfterEach
+    public void deleteData() {
+        if (userService.getAll().stream().anyMatch(user -> user.getId().equals(owner.getId()))) {
+            userService.deleteById(owner.getId());
+        }
+    }
+
+    @Test
+    void getById_whenUserReadAgain_thenServedFromCache() {
+        userService.getById(owner.getId());
+
+        statistics.clear();
+        userService.getById(owner.getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void createAll_whenItemsImported_thenNotPutIntoCache() {
+        statistics.clear();
+        itemService.createAll(owner.getId(), List.of(
+                ItemDto.builder().name("Saw").description("Sharp").available(true).build(),
+                ItemDto.builder().name("Drill").description("Loud").available(true).build()).iterator());
+
+        assertEquals(0, statistics.getSecondLevelCachePutCount());
+    }
+
+    @Test
+    void update_whenUserCached_thenUpdatedUserReturned() {
+        userService.getById(owner.getId());
+
+        userService.update(owner.getId(), new UserDto(null, "John Updated", null));
+
+        assertEquals("John Updated", userService.getById(owner.getId()).getName());
+    }
+
+    @Test
+    void getAllByUser_whenRequestsReadAgain_thenQueryServedFromCache() {
+        requestService.create(owner.getId(), new CreationRequestDto("Need a ladder"));
+        requestService.getAllByUser(owner.getId());
+
+        statistics.clear();
+        requestService.getAllByUser(owner.getId());
+
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void deleteById_whenItemsOfUserCached_thenItemsEvicted() {
+        itemService.getById(owner.getId(), item.getId());
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+
+        userService.deleteById(owner.getId());
+
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+    }
+}
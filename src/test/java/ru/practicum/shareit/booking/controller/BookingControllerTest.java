@@ -10,14 +10,26 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportView;
+import ru.practicum.shareit.booking.dto.CompactBookingDto;
 import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingView;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.exception.NotFoundException;
+import ru.practicum.shareit.util.pagination.Cursor;
+import ru.practicum.shareit.util.pagination.CursorPage;
+import ru.practicum.shareit.util.pagination.Paging;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.hasSize;
@@ -25,6 +37,8 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -341,8 +355,9 @@ class BookingControllerTest {
                 .status("WAITING")
                 .build();
 
-        when(bookingService.getAllByUser(anyLong(), anyString(), anyInt(), anyInt()))
-                .thenReturn(List.of(expectedResult));
+        when(bookingService.getAll(anyLong(), eq(BookingRole.BOOKER), anyString(),
+                eq(BookingView.FULL), any(Paging.class)))
+                .thenReturn(new CursorPage<>(List.of(expectedResult), null));
 
         mvc.perform(get("/bookings?from=0&size=10")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -358,6 +373,69 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[0].status", is(expectedResult.getStatus())));
     }
 
+    @Test
+    void getAllByUser_whenNextCursorFound_thenNextCursorHeaderReturned() throws Exception {
+        long userId = 1L;
+        Cursor next = Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0), 1L);
+
+        BookingDto expectedResult = BookingDto.builder()
+                .id(1L)
+                .start("2023-07-05T15:00")
+                .end("2023-07-06T20:00")
+                .status("WAITING")
+                .build();
+
+        when(bookingService.getAll(userId, BookingRole.BOOKER, "ALL", BookingView.FULL, Paging.offset(0, 1)))
+                .thenReturn(new CursorPage<>(List.of(expectedResult), next));
+        when(bookingService.getAll(userId, BookingRole.BOOKER, "ALL", BookingView.FULL, Paging.offset(0, 2)))
+                .thenReturn(new CursorPage<>(List.of(expectedResult), null));
+
+        mvc.perform(get("/bookings?from=0&size=1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER, next.encode()));
+
+        mvc.perform(get("/bookings?from=0&size=2")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(Cursor.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getAllByUser_whenAfterGiven_thenBookingsAfterCursorRequested() throws Exception {
+        long userId = 1L;
+        Cursor cursor = Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0), 1L);
+
+        when(bookingService.getAll(userId, BookingRole.BOOKER, "ALL", BookingView.FULL, Paging.after(cursor, 10)))
+                .thenReturn(new CursorPage<>(List.of(), null));
+
+        mvc.perform(get("/bookings?after=" + cursor.encode())
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(0)));
+
+        verify(bookingService).getAll(userId, BookingRole.BOOKER, "ALL", BookingView.FULL, Paging.after(cursor, 10));
+    }
+
+    @Test
+    void getAllByUser_whenAfterNotValid_thenResponseStatusBadRequest() throws Exception {
+        long userId = 1L;
+
+        mvc.perform(get("/bookings?after=broken")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(bookingService);
+    }
+
     @Test
     void getAllByUser_whenFromOrSizeNotValid_thenResponseStatusServerError() throws Exception {
         long userId = 1L;
@@ -386,7 +464,7 @@ class BookingControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().is5xxServerError());
 
-        verify(bookingService, never()).getAllByItemOwner(anyLong(), anyString(), anyInt(), anyInt());
+        verifyNoInteractions(bookingService);
     }
 
     @Test
@@ -402,8 +480,9 @@ class BookingControllerTest {
                 .status("WAITING")
                 .build();
 
-        when(bookingService.getAllByItemOwner(anyLong(), anyString(), anyInt(), anyInt()))
-                .thenReturn(List.of(expectedResult));
+        when(bookingService.getAll(anyLong(), eq(BookingRole.ITEM_OWNER), anyString(),
+                eq(BookingView.FULL), any(Paging.class)))
+                .thenReturn(new CursorPage<>(List.of(expectedResult), null));
 
         mvc.perform(get("/bookings/owner?from=0&size=10")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -418,7 +497,7 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[0].booker", is(nullValue(UserDto.class))))
                 .andExpect(jsonPath("$[0].status", is(expectedResult.getStatus())));
 
-        verify(bookingService, never()).getAllByUser(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingService, never()).getAll(anyLong(), eq(BookingRole.BOOKER), anyString(), any(), any());
     }
 
     @Test
@@ -449,6 +528,165 @@ class BookingControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().is5xxServerError());
 
-        verify(bookingService, never()).getAllByItemOwner(anyLong(), anyString(), anyInt(), anyInt());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void getAllCompactByUser_whenViewCompact_thenCompactBookingsWithNextCursorReturned() throws Exception {
+        long userId = 1L;
+
+        CompactBookingDto expectedResult = CompactBookingDto.builder()
+                .id(1L)
+                .start("2023-07-05T15:00")
+                .end("2023-07-06T20:00")
+                .item(new ItemShortDto(2L, "Hammer"))
+                .bookerId(userId)
+                .status("WAITING")
+                .build();
+
+        when(bookingService.getAll(anyLong(), eq(BookingRole.BOOKER), anyString(),
+                eq(BookingView.COMPACT), any(Paging.class)))
+                .thenReturn(new CursorPage<>(List.of(expectedResult),
+                        Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0), 1L)));
+
+        mvc.perform(get("/bookings?view=compact&from=0&size=1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(expectedResult.getId()), Long.class))
+                .andExpect(jsonPath("$[0].item.id", is(2L), Long.class))
+                .andExpect(jsonPath("$[0].item.name", is("Hammer")))
+                .andExpect(jsonPath("$[0].item.comments").doesNotExist())
+                .andExpect(jsonPath("$[0].bookerId", is(userId), Long.class))
+                .andExpect(jsonPath("$[0].status", is(expectedResult.getStatus())))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        Cursor.of(LocalDateTime.parse(expectedResult.getStart()), 1L).encode()));
+
+        verify(bookingService, never()).getAll(anyLong(), any(), anyString(), eq(BookingView.FULL), any());
+    }
+
+    @Test
+    void getAllCompactByItemOwner_whenViewCompactAndAfterGiven_thenCompactBookingsAfterCursorRequested()
+            throws Exception {
+        long userId = 1L;
+        Cursor cursor = Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0), 1L);
+
+        when(bookingService.getAll(userId, BookingRole.ITEM_OWNER, "ALL",
+                BookingView.COMPACT, Paging.after(cursor, 10)))
+                .thenReturn(new CursorPage<>(List.of(), null));
+
+        mvc.perform(get("/bookings/owner")
+                        .param("view", "compact")
+                        .param("after", cursor.encode())
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(0)))
+                .andExpect(header().doesNotExist(Cursor.NEXT_CURSOR_HEADER));
+
+        verify(bookingService).getAll(userId, BookingRole.ITEM_OWNER, "ALL",
+                BookingView.COMPACT, Paging.after(cursor, 10));
+        verify(bookingService, never()).getAll(anyLong(), any(), anyString(), eq(BookingView.FULL), any());
+    }
+
+    @Test
+    void getAllFieldsByUser_whenFieldsGiven_thenSelectedFieldsWithNextCursorReturned() throws Exception {
+        long userId = 1L;
+
+        when(bookingService.getAll(userId, BookingRole.BOOKER, "ALL",
+                BookingView.fields("item.name"), Paging.offset(0, 1)))
+                .thenReturn(new CursorPage<>(
+                        List.of(Map.of("id", 1L, "start", "2023-07-05T15:00", "item", Map.of("name", "Hammer"))),
+                        Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0), 1L)));
+
+        mvc.perform(get("/bookings?fields=item.name&from=0&size=1")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.name", is("Hammer")))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        Cursor.of(LocalDateTime.parse("2023-07-05T15:00"), 1L).encode()));
+
+        verify(bookingService, never()).getAll(anyLong(), any(), anyString(), eq(BookingView.FULL), any());
+    }
+
+    @Test
+    void exportByItemOwner_whenFormatNotGiven_thenBookingsStreamedAsNdjson() throws Exception {
+        long userId = 1L;
+        LocalDateTime start = LocalDateTime.of(2023, 7, 5, 15, 0);
+
+        doAnswer(invocation -> {
+            Consumer<BookingExportView> action = invocation.getArgument(1);
+            action.accept(exportView(2L, start, "Hammer"));
+            action.accept(exportView(1L, start.minusDays(1), "Saw \"XL\""));
+            return null;
+        }).when(bookingService).exportByItemOwner(eq(userId), any());
+
+        mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"bookings.ndjson\""))
+                .andExpect(content().string(
+                        "{\"id\":2,\"start\":\"2023-07-05T15:00\",\"end\":\"2023-07-05T16:00\",\"status\":\"APPROVED\"," +
+                                "\"itemId\":1,\"itemName\":\"Hammer\",\"bookerId\":2}\n" +
+                                "{\"id\":1,\"start\":\"2023-07-04T15:00\",\"end\":\"2023-07-04T16:00\",\"status\":\"APPROVED\"," +
+                                "\"itemId\":1,\"itemName\":\"Saw \\\"XL\\\"\",\"bookerId\":2}\n"));
+    }
+
+    @Test
+    void exportByItemOwner_whenFormatCsv_thenBookingsStreamedAsQuotedCsv() throws Exception {
+        long userId = 1L;
+        LocalDateTime start = LocalDateTime.of(2023, 7, 5, 15, 0);
+
+        doAnswer(invocation -> {
+            Consumer<BookingExportView> action = invocation.getArgument(1);
+            action.accept(exportView(2L, start, "Hammer"));
+            action.accept(exportView(1L, start.minusDays(1), "Saw, \"XL\""));
+            return null;
+        }).when(bookingService).exportByItemOwner(eq(userId), any());
+
+        mvc.perform(get("/bookings/owner/export?format=csv")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,start,end,status,itemId,itemName,bookerId\r\n" +
+                        "2,2023-07-05T15:00,2023-07-05T16:00,APPROVED,1,Hammer,2\r\n" +
+                        "1,2023-07-04T15:00,2023-07-04T16:00,APPROVED,1,\"Saw, \"\"XL\"\"\",2\r\n"));
+    }
+
+    @Test
+    void exportByItemOwner_whenUserNotFound_thenResponseStatusNotFound() throws Exception {
+        long userId = 1L;
+
+        doThrow(new NotFoundException("User with id " + userId + " does not exist"))
+                .when(bookingService).exportByItemOwner(eq(userId), any());
+
+        mvc.perform(get("/bookings/owner/export?format=csv")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", is("User with id 1 does not exist")));
+    }
+
+    @Test
+    void exportByItemOwner_whenFormatUnknown_thenResponseStatusBadRequest() throws Exception {
+        mvc.perform(get("/bookings/owner/export?format=xml")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(bookingService);
+    }
+
+    private static BookingExportView exportView(long id, LocalDateTime start, String itemName) {
+        BookingExportView view = mock(BookingExportView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getStartDate()).thenReturn(start);
+        when(view.getEndDate()).thenReturn(start.plusHours(1));
+        when(view.getStatus()).thenReturn(BookingStatus.APPROVED);
+        when(view.getItemId()).thenReturn(1L);
+        when(view.getItemName()).thenReturn(itemName);
+        when(view.getBookerId()).thenReturn(2L);
+        return view;
     }
-}
\ No newline at end of file
+}
@@ -6,18 +6,32 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingExportView;
+import ru.practicum.shareit.booking.dto.BookingPeriodView;
+import ru.practicum.shareit.booking.dto.CompactBookingView;
+import ru.practicum.shareit.booking.dto.ItemBookingShortView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.pagination.Cursor;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.afterCursor;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.hasBooker;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.hasItemOwner;
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.inState;
 
 @DataJpaTest
 class BookingRepositoryTest {
@@ -61,9 +75,9 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findAllByBooker_whenPersist_thenCollectionOfBookingsReturned() {
-        List<Booking> maybeBookers = bookingRepository.findAllByBooker(
-                booker,
+    void findList_whenPersistAndFilterByBooker_thenCollectionOfBookingsReturned() {
+        List<Booking> maybeBookers = bookingRepository.findList(
+                hasBooker(booker.getId()),
                 PageRequest.of(0, 10)
         );
 
@@ -75,46 +89,43 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc_whenPersist_thenOptionalOfBookingReturned() {
-        Optional<Booking> maybeBooker = bookingRepository.findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(
-                item,
-                LocalDateTime.now().plusDays(10),
-                BookingStatus.CANCELED
+    void findCompactList_whenPersistAndFilterByItemOwner_thenColumnsOfBookingsReturned() {
+        List<CompactBookingView> bookings = bookingRepository.findCompactList(
+                hasItemOwner(itemOwner.getId()),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "start", "id"))
         );
 
-        assertTrue(maybeBooker.isPresent());
-        assertSame(booking, maybeBooker.get());
+        assertEquals(1, bookings.size());
+        assertEquals(booking.getId(), bookings.get(0).getId());
+        assertEquals(item.getId(), bookings.get(0).getItemId());
+        assertEquals("Hammer", bookings.get(0).getItemName());
+        assertEquals(booker.getId(), bookings.get(0).getBookerId());
+        assertEquals(BookingStatus.APPROVED, bookings.get(0).getStatus());
+        assertNotNull(bookings.get(0).getStartDate());
+        assertNotNull(bookings.get(0).getEndDate());
+        assertTrue(bookingRepository.findCompactList(hasBooker(itemOwner.getId()), PageRequest.of(0, 10)).isEmpty());
     }
 
     @Test
-    void findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc_whenPersist_thenOptionalOfBookingReturned() {
-        Optional<Booking> maybeBooker = bookingRepository.findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(
-                item,
-                LocalDateTime.now(),
-                BookingStatus.CANCELED
-        );
-
-        assertTrue(maybeBooker.isPresent());
-        assertSame(booking, maybeBooker.get());
-    }
-
-    @Test
-    void findFirstByBookerAndItemAndStatusAndEndBefore_whenPersist_thenOptionalOfBookingReturned() {
-        Optional<Booking> maybeBooker = bookingRepository.findFirstByBookerAndItemAndStatusAndEndBefore(
-                booker,
-                item,
+    void existsByBookerIdAndItemIdAndStatusAndEndBefore_whenPersist_thenTrueReturned() {
+        assertTrue(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(
+                booker.getId(),
+                item.getId(),
                 BookingStatus.APPROVED,
                 LocalDateTime.now().plusDays(3)
-        );
-
-        assertTrue(maybeBooker.isPresent());
-        assertSame(booking, maybeBooker.get());
+        ));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(
+                booker.getId(),
+                item.getId(),
+                BookingStatus.APPROVED,
+                LocalDateTime.now()
+        ));
     }
 
     @Test
-    void findAllByItemOwner_whenPersist_thenCollectionOfBookingsReturned() {
-        List<Booking> maybeBookers = bookingRepository.findAllByItemOwner(
-                itemOwner,
+    void findList_whenPersistAndFilterByItemOwner_thenCollectionOfBookingsReturned() {
+        List<Booking> maybeBookers = bookingRepository.findList(
+                hasItemOwner(itemOwner.getId()),
                 PageRequest.of(0, 10)
         );
 
@@ -125,6 +136,237 @@ class BookingRepositoryTest {
         assertSame(itemOwner, booking.getItem().getOwner());
     }
 
+    @Test
+    void findList_whenPersistAndFilterByState_thenBookingsOfStateReturned() {
+        LocalDateTime now = LocalDateTime.now();
+
+        Booking pastBooking = new Booking();
+        pastBooking.setStart(now.minusDays(3));
+        pastBooking.setEnd(now.minusDays(2));
+        pastBooking.setItem(item);
+        pastBooking.setBooker(booker);
+        pastBooking.setStatus(BookingStatus.REJECTED);
+        bookingRepository.save(pastBooking);
+
+        Booking currentBooking = new Booking();
+        currentBooking.setStart(now.minusDays(1));
+        currentBooking.setEnd(now.plusHours(1));
+        currentBooking.setItem(item);
+        currentBooking.setBooker(booker);
+        currentBooking.setStatus(BookingStatus.WAITING);
+        bookingRepository.save(currentBooking);
+
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "start"));
+        Specification<Booking> byBooker = hasBooker(booker.getId());
+
+        assertEquals(List.of(booking, currentBooking, pastBooking),
+                bookingRepository.findList(byBooker.and(inState(BookingState.ALL, now)), pageRequest));
+        assertEquals(List.of(currentBooking),
+                bookingRepository.findList(byBooker.and(inState(BookingState.CURRENT, now)), pageRequest));
+        assertEquals(List.of(pastBooking),
+                bookingRepository.findList(byBooker.and(inState(BookingState.PAST, now)), pageRequest));
+        assertEquals(List.of(booking, currentBooking),
+                bookingRepository.findList(byBooker.and(inState(BookingState.FUTURE, now)), pageRequest));
+        assertEquals(List.of(currentBooking),
+                bookingRepository.findList(byBooker.and(inState(BookingState.WAITING, now)), pageRequest));
+        assertEquals(List.of(pastBooking),
+                bookingRepository.findList(byBooker.and(inState(BookingState.REJECTED, now)), pageRequest));
+        assertEquals(List.of(currentBooking),
+                bookingRepository.findList(byBooker, PageRequest.of(1, 1, Sort.by(Sort.Direction.DESC, "start"))));
+    }
+
+    @Test
+    void findList_whenFilterAfterCursor_thenBookingsFollowingCursorReturned() {
+        booking.setStart(booking.getStart().truncatedTo(ChronoUnit.SECONDS));
+
+        Booking sameStartBooking = new Booking();
+        sameStartBooking.setStart(booking.getStart());
+        sameStartBooking.setEnd(booking.getEnd());
+        sameStartBooking.setItem(item);
+        sameStartBooking.setBooker(booker);
+        sameStartBooking.setStatus(BookingStatus.WAITING);
+        bookingRepository.save(sameStartBooking);
+
+        Booking earlierBooking = new Booking();
+        earlierBooking.setStart(booking.getStart().minusHours(1));
+        earlierBooking.setEnd(booking.getEnd());
+        earlierBooking.setItem(item);
+        earlierBooking.setBooker(booker);
+        earlierBooking.setStatus(BookingStatus.WAITING);
+        bookingRepository.save(earlierBooking);
+
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "start", "id"));
+        Cursor cursor = Cursor.of(sameStartBooking.getStart(), sameStartBooking.getId());
+
+        assertEquals(List.of(booking, earlierBooking),
+                bookingRepository.findList(hasBooker(booker.getId()).and(afterCursor(cursor)), pageRequest));
+    }
+
+    @Test
+    void findLastAndNextByItemIds_whenPersist_thenLastAndNextBookingOfItemReturned() {
+        Booking pastBooking = new Booking();
+        pastBooking.setStart(LocalDateTime.now().minusDays(3));
+        pastBooking.setEnd(LocalDateTime.now().minusDays(2));
+        pastBooking.setItem(item);
+        pastBooking.setBooker(booker);
+        pastBooking.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(pastBooking);
+
+        Booking rejectedBooking = new Booking();
+        rejectedBooking.setStart(LocalDateTime.now().minusHours(5));
+        rejectedBooking.setEnd(LocalDateTime.now().minusHours(4));
+        rejectedBooking.setItem(item);
+        rejectedBooking.setBooker(booker);
+        rejectedBooking.setStatus(BookingStatus.REJECTED);
+        bookingRepository.save(rejectedBooking);
+
+        Booking furtherBooking = new Booking();
+        furtherBooking.setStart(LocalDateTime.now().plusDays(5));
+        furtherBooking.setEnd(LocalDateTime.now().plusDays(6));
+        furtherBooking.setItem(item);
+        furtherBooking.setBooker(booker);
+        furtherBooking.setStatus(BookingStatus.WAITING);
+        bookingRepository.save(furtherBooking);
+
+        List<ItemBookingShortView> bookings = bookingRepository.findLastAndNextByItemIds(
+                List.of(item.getId()),
+                LocalDateTime.now()
+        );
+
+        assertEquals(2, bookings.size());
+
+        ItemBookingShortView last = bookings.stream()
+                .filter(view -> ItemBookingShortView.LAST.equals(view.getKind()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(item.getId(), last.getItemId());
+        assertEquals(pastBooking.getId(), last.getId());
+        assertEquals(booker.getId(), last.getBookerId());
+
+        ItemBookingShortView next = bookings.stream()
+                .filter(view -> ItemBookingShortView.NEXT.equals(view.getKind()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(item.getId(), next.getItemId());
+        assertEquals(booking.getId(), next.getId());
+        assertEquals(booker.getId(), next.getBookerId());
+    }
+
+    @Test
+    void findLastAndNextByItemId_whenPersist_thenLastAndNextBookingOfItemReturned() {
+        Booking pastBooking = new Booking();
+        pastBooking.setStart(LocalDateTime.now().minusDays(3));
+        pastBooking.setEnd(LocalDateTime.now().minusDays(2));
+        pastBooking.setItem(item);
+        pastBooking.setBooker(booker);
+        pastBooking.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(pastBooking);
+
+        Booking rejectedBooking = new Booking();
+        rejectedBooking.setStart(LocalDateTime.now().plusHours(4));
+        rejectedBooking.setEnd(LocalDateTime.now().plusHours(5));
+        rejectedBooking.setItem(item);
+        rejectedBooking.setBooker(booker);
+        rejectedBooking.setStatus(BookingStatus.REJECTED);
+        bookingRepository.save(rejectedBooking);
+
+        List<ItemBookingShortView> bookings = bookingRepository.findLastAndNextByItemId(
+                item.getId(),
+                LocalDateTime.now()
+        );
+
+        assertEquals(2, bookings.size());
+        assertEquals(ItemBookingShortView.LAST, bookings.get(0).getKind());
+        assertEquals(pastBooking.getId(), bookings.get(0).getId());
+        assertEquals(ItemBookingShortView.NEXT, bookings.get(1).getKind());
+        assertEquals(booking.getId(), bookings.get(1).getId());
+        assertEquals(item.getId(), bookings.get(1).getItemId());
+    }
+
+    @Test
+    void findLastAndNextByItemId_whenNoPastBooking_thenOnlyNextReturned() {
+        List<ItemBookingShortView> bookings = bookingRepository.findLastAndNextByItemId(
+                item.getId(),
+                LocalDateTime.now()
+        );
+
+        assertEquals(1, bookings.size());
+        assertEquals(ItemBookingShortView.NEXT, bookings.get(0).getKind());
+        assertEquals(booker.getId(), bookings.get(0).getBookerId());
+    }
+
+    @Test
+    void existsOverlapping_whenPeriodsIntersect_thenTrueReturned() {
+        assertTrue(bookingRepository.existsOverlapping(item.getId(),
+                booking.getStart().minusHours(1), booking.getStart().plusHours(1)));
+        assertTrue(bookingRepository.existsOverlapping(item.getId(),
+                booking.getStart().plusHours(1), booking.getEnd().minusHours(1)));
+    }
+
+    @Test
+    void existsOverlapping_whenPeriodsOnlyTouch_thenFalseReturned() {
+        booking.setStart(booking.getStart().truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(booking.getEnd().truncatedTo(ChronoUnit.SECONDS));
+        bookingRepository.save(booking);
+
+        assertFalse(bookingRepository.existsOverlapping(item.getId(),
+                booking.getEnd(), booking.getEnd().plusDays(1)));
+        assertFalse(bookingRepository.existsOverlapping(item.getId(),
+                booking.getStart().minusDays(1), booking.getStart()));
+    }
+
+    @Test
+    void existsOverlapping_whenBookingRejected_thenFalseReturned() {
+        booking.setStatus(BookingStatus.REJECTED);
+        bookingRepository.save(booking);
+
+        assertFalse(bookingRepository.existsOverlapping(item.getId(), booking.getStart(), booking.getEnd()));
+    }
+
+    @Test
+    void findPeriodsEndingAfter_whenPersist_thenPeriodOfHoldingBookingReturned() {
+        List<BookingPeriodView> periods = bookingRepository.findPeriodsEndingAfter(LocalDateTime.now(),
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED));
+
+        assertEquals(1, periods.size());
+        assertEquals(item.getId(), periods.get(0).getItemId());
+        assertEquals(booking.getId(), periods.get(0).getId());
+        assertEquals(booker.getId(), periods.get(0).getBookerId());
+        assertNotNull(periods.get(0).getStartDate());
+        assertNotNull(periods.get(0).getEndDate());
+        assertTrue(bookingRepository.findPeriodsEndingAfter(booking.getEnd().plusDays(1),
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED)).isEmpty());
+    }
+
+    @Test
+    void streamAllByItemOwnerId_whenPersist_thenBookingsOfOwnerItemsStreamedNewestFirst() {
+        Booking older = new Booking();
+        older.setStart(booking.getStart().minusDays(3));
+        older.setEnd(booking.getStart().minusDays(2));
+        older.setItem(item);
+        older.setBooker(booker);
+        older.setStatus(BookingStatus.REJECTED);
+        bookingRepository.save(older);
+
+        List<BookingExportView> bookings;
+        try (Stream<BookingExportView> stream = bookingRepository.streamAllByItemOwnerId(itemOwner.getId())) {
+            bookings = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(2, bookings.size());
+        assertEquals(booking.getId(), bookings.get(0).getId());
+        assertEquals(older.getId(), bookings.get(1).getId());
+        assertEquals(BookingStatus.REJECTED, bookings.get(1).getStatus());
+        assertEquals(item.getId(), bookings.get(0).getItemId());
+        assertEquals("Hammer", bookings.get(0).getItemName());
+        assertEquals(booker.getId(), bookings.get(0).getBookerId());
+        assertNotNull(bookings.get(0).getStartDate());
+        assertNotNull(bookings.get(0).getEndDate());
+        try (Stream<BookingExportView> stream = bookingRepository.streamAllByItemOwnerId(booker.getId())) {
+            assertEquals(0, stream.count());
+        }
+    }
+
     @AfterEach
     public void deleteData() {
         userRepository.deleteAll();
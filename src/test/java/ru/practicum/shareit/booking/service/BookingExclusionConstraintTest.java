@@ -0,0 +1,151 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptException;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.datasource.EnabledOnPostgres;
+import ru.practicum.shareit.util.exception.ConflictException;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * The exclusion constraint of schema-postgresql.sql itself, with the checks in front of it out of the way.
+ */
+@SpringBootTest
+@EnabledOnPostgres
+class BookingExclusionConstraintTest {
+    private static final String INSERT_BOOKING = "INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, " +
+            "status) VALUES (nextval('bookings_seq'), ?, ?, ?, ?, ?) RETURNING id";
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemAvailabilityIndex availabilityIndex;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @SpyBean
+    private BookingRepository bookingRepository;
+
+    private UserDto owner;
+    private UserDto booker;
+    private ItemDto item;
+    private LocalDateTime start;
+
+    @BeforeEach
+    public void addData() {
+        owner = userService.create(new UserDto(null, "John", "john.exclusion@example.com"));
+        booker = userService.create(new UserDto(null, "Danny", "danny.exclusion@example.com"));
+        item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Hammer")
+                .description("Handy tool")
+                .available(true)
+                .build());
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @AfterEach
+    public void deleteData() {
+        userService.deleteById(owner.getId());
+        userService.deleteById(booker.getId());
+    }
+
+    @Test
+    void insert_whenPeriodOverlapsWaitingBooking_thenRejectedByDatabase() {
+        insertBooking(start, start.plusHours(2), "WAITING");
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> insertBooking(start.plusHours(1), start.plusHours(3), "APPROVED"));
+    }
+
+    @Test
+    void insert_whenPeriodOverlapsRejectedBooking_thenInserted() {
+        insertBooking(start, start.plusHours(2), "REJECTED");
+        insertBooking(start.plusHours(1), start.plusHours(3), "WAITING");
+
+        assertThat(countBookings("WAITING"), equalTo(1));
+    }
+
+    @Test
+    void create_whenOnlyConstraintSeesOverlap_thenConflictExceptionThrown() {
+        BookingDto first = bookingService.create(booker.getId(), new CreationBookingDto(item.getId(),
+                start.toString(), start.plusHours(2).toString()));
+        // as if the booking had been written by something that bypasses the service
+        availabilityIndex.remove(item.getId(), first.getId());
+        doReturn(false).when(bookingRepository).existsOverlapping(anyLong(), any(), any());
+
+        assertThrows(ConflictException.class, () -> bookingService.create(booker.getId(),
+                new CreationBookingDto(item.getId(), start.plusHours(1).toString(), start.plusHours(3).toString())));
+        assertThat(countBookings("WAITING"), equalTo(1));
+    }
+
+    @Test
+    void schema_whenOverlapsExistBeforeConstraint_thenStartupFailsAndBookingsKept() {
+        jdbcTemplate.execute("ALTER TABLE bookings DROP CONSTRAINT bookings_item_id_period_excl");
+        try {
+            long first = insertBooking(start, start.plusHours(2), "APPROVED");
+            long second = insertBooking(start.plusHours(1), start.plusHours(3), "WAITING");
+            insertBooking(start.plusHours(5), start.plusHours(6), "WAITING");
+
+            ScriptException exception = assertThrows(ScriptException.class, () -> runScript("schema-postgresql.sql"));
+
+            assertThat(exception.getCause().getMessage(), containsString(first + ", " + second + " overlap"));
+            assertThat(countBookings("APPROVED"), equalTo(1));
+            assertThat(countBookings("WAITING"), equalTo(2));
+            assertThat(countBookings("REJECTED"), equalTo(0));
+        } finally {
+            runScript("db/reject-overlapping-bookings.sql");
+            runScript("schema-postgresql.sql");
+        }
+
+        assertThat(countBookings("APPROVED"), equalTo(1));
+        assertThat(countBookings("WAITING"), equalTo(1));
+        assertThat(countBookings("REJECTED"), equalTo(1));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_constraint " +
+                "WHERE conname = 'bookings_item_id_period_excl'", Integer.class), equalTo(1));
+    }
+
+    private long insertBooking(LocalDateTime start, LocalDateTime end, String status) {
+        return jdbcTemplate.queryForObject(INSERT_BOOKING, Long.class,
+                start, end, item.getId(), booker.getId(), status);
+    }
+
+    private void runScript(String path) {
+        new ResourceDatabasePopulator(new ClassPathResource(path)).execute(dataSource);
+    }
+
+    private int countBookings(String status) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM bookings WHERE item_id = ? AND status = ?",
+                Integer.class, item.getId(), status);
+    }
+}
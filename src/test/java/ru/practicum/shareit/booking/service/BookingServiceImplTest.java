@@ -1,6 +1,8 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,9 +11,12 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.CreationBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.exception.ConflictException;
+import ru.practicum.shareit.util.pagination.Paging;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -20,6 +25,7 @@ import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
 @SpringBootTest
@@ -77,6 +83,47 @@ class BookingServiceImplTest {
         assertThat(createdBooking.getStatus(), equalTo(BookingStatus.WAITING));
     }
 
+    @Test
+    void create_whenPeriodOverlapsWaitingBooking_thenConflictExceptionThrown() {
+        Booking booking = new Booking();
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(3));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.WAITING);
+        em.persist(booking);
+        em.flush();
+
+        CreationBookingDto creationBookingDto = new CreationBookingDto();
+        creationBookingDto.setItemId(item.getId());
+        creationBookingDto.setStart(LocalDateTime.now().plusDays(2).toString());
+        creationBookingDto.setEnd(LocalDateTime.now().plusDays(4).toString());
+
+        assertThrows(ConflictException.class, () -> bookingService.create(booker.getId(), creationBookingDto));
+    }
+
+    @Test
+    void create_whenPeriodOverlapsRejectedBooking_thenBookingCreated() {
+        Booking booking = new Booking();
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(3));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.REJECTED);
+        em.persist(booking);
+        em.flush();
+
+        CreationBookingDto creationBookingDto = new CreationBookingDto();
+        creationBookingDto.setItemId(item.getId());
+        creationBookingDto.setStart(LocalDateTime.now().plusDays(2).toString());
+        creationBookingDto.setEnd(LocalDateTime.now().plusDays(4).toString());
+
+        BookingDto resultBookingDto = bookingService.create(booker.getId(), creationBookingDto);
+
+        assertThat(resultBookingDto.getId(), notNullValue());
+        assertThat(resultBookingDto.getStatus(), equalTo(BookingStatus.WAITING.name()));
+    }
+
     @Test
     void confirmStatus_whenSuccess_thenConfirmAndBookingDtoReturned() {
         Booking booking = new Booking();
@@ -151,12 +198,8 @@ class BookingServiceImplTest {
         em.persist(booking);
         em.flush();
 
-        List<BookingDto> resultBookingDto = bookingService.getAllByUser(
-                booker.getId(),
-                "FUTURE",
-                0,
-                10
-        );
+        List<BookingDto> resultBookingDto = bookingService.getAll(booker.getId(), BookingRole.BOOKER, "FUTURE",
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertThat(resultBookingDto.isEmpty(), is(false));
         assertThat(resultBookingDto.get(0).getId(), notNullValue());
@@ -181,12 +224,8 @@ class BookingServiceImplTest {
         em.persist(booking);
         em.flush();
 
-        List<BookingDto> resultBookingDto = bookingService.getAllByItemOwner(
-                itemOwner.getId(),
-                "FUTURE",
-                0,
-                10
-        );
+        List<BookingDto> resultBookingDto = bookingService.getAll(itemOwner.getId(), BookingRole.ITEM_OWNER, "FUTURE",
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertThat(resultBookingDto.isEmpty(), is(false));
         assertThat(resultBookingDto.get(0).getId(), notNullValue());
@@ -199,4 +238,49 @@ class BookingServiceImplTest {
         assertThat(resultBookingDto.get(0).getBooker().getEmail(), equalTo(booker.getEmail()));
         assertThat(resultBookingDto.get(0).getStatus(), equalTo("WAITING"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllByItemOwner_whenPageGrows_thenNumberOfStatementsStaysTheSame() {
+        for (int i = 0; i < 6; i++) {
+            User anotherBooker = new User(null, "Kyle" + i, "kyle" + i + "@example.com");
+            em.persist(anotherBooker);
+
+            Item anotherItem = new Item();
+            anotherItem.setOwner(itemOwner);
+            anotherItem.setName("Saw");
+            anotherItem.setDescription("Sharp tool");
+            anotherItem.setAvailable(true);
+            em.persist(anotherItem);
+
+            Booking booking = new Booking();
+            booking.setStart(LocalDateTime.now().plusDays(i + 1));
+            booking.setEnd(LocalDateTime.now().plusDays(i + 2));
+            booking.setItem(anotherItem);
+            booking.setBooker(anotherBooker);
+            booking.setStatus(BookingStatus.WAITING);
+            em.persist(booking);
+        }
+
+        // the first call also remembers the owner in UserIdCache
+        bookingService.getAll(itemOwner.getId(), BookingRole.ITEM_OWNER, "ALL", BookingView.FULL, Paging.offset(0, 1));
+
+        long smallPageStatements = countStatements(() ->
+                bookingService.getAll(itemOwner.getId(), BookingRole.ITEM_OWNER, "ALL",
+                        BookingView.FULL, Paging.offset(0, 2)));
+        long largePageStatements = countStatements(() ->
+                bookingService.getAll(itemOwner.getId(), BookingRole.ITEM_OWNER, "ALL",
+                        BookingView.FULL, Paging.offset(0, 6)));
+
+        assertThat(largePageStatements, equalTo(smallPageStatements));
+    }
+
+    private long countStatements(Runnable action) {
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -7,25 +7,43 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportView;
+import ru.practicum.shareit.booking.dto.CompactBookingDto;
+import ru.practicum.shareit.booking.dto.CompactBookingView;
 import ru.practicum.shareit.booking.dto.CreationBookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.BookingView;
+import ru.practicum.shareit.booking.service.ItemAvailabilityIndex;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdCache;
+import ru.practicum.shareit.util.etag.EtagCache;
+import ru.practicum.shareit.util.exception.ConflictException;
 import ru.practicum.shareit.util.exception.NoAccessException;
 import ru.practicum.shareit.util.exception.NotFoundException;
 import ru.practicum.shareit.util.exception.ValidationException;
+import ru.practicum.shareit.util.pagination.Cursor;
+import ru.practicum.shareit.util.pagination.CursorPage;
+import ru.practicum.shareit.util.pagination.Paging;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -39,9 +57,15 @@ class BookingServiceImplTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserIdCache userIdCache;
+    @Mock
     private ItemRepository itemRepository;
     @Mock
     private BookingMapper bookingMapper;
+    @Mock
+    private ItemAvailabilityIndex availabilityIndex;
+    @Mock
+    private EtagCache etagCache;
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -56,18 +80,24 @@ class BookingServiceImplTest {
         User booker = new User(userId, "John", "john@example.com");
 
         Item item = new Item();
+        item.setId(itemId);
         item.setOwner(new User(2L, "Nick", "nick@example.com"));
         item.setAvailable(true);
 
         Booking booking = new Booking();
+        booking.setId(3L);
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
 
         when(userRepository.findById(userId))
                 .thenReturn(Optional.of(booker));
-        when(itemRepository.findById(creationBookingDto.getItemId()))
+        when(itemRepository.findByIdForUpdate(creationBookingDto.getItemId()))
                 .thenReturn(Optional.of(item));
         when(bookingMapper.toBooking(creationBookingDto))
                 .thenReturn(booking);
-        when(bookingRepository.save(booking))
+        when(bookingRepository.existsOverlapping(itemId, booking.getStart(), booking.getEnd()))
+                .thenReturn(false);
+        when(bookingRepository.saveAndFlush(booking))
                 .thenReturn(booking);
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
@@ -75,7 +105,7 @@ class BookingServiceImplTest {
         BookingDto result = bookingService.create(userId, creationBookingDto);
 
         assertNotNull(result);
-        verify(bookingRepository).save(bookingArgumentCaptor.capture());
+        verify(bookingRepository).saveAndFlush(bookingArgumentCaptor.capture());
 
         Booking savedBooking = bookingArgumentCaptor.getValue();
         assertEquals(booking, savedBooking);
@@ -83,11 +113,116 @@ class BookingServiceImplTest {
         assertEquals(item, savedBooking.getItem());
         assertEquals(BookingStatus.WAITING, savedBooking.getStatus());
         verify(userRepository, times(1)).findById(userId);
-        verify(itemRepository, times(1)).findById(itemId);
+        verify(itemRepository, times(1)).findByIdForUpdate(itemId);
         verify(bookingMapper, times(1)).toBooking(creationBookingDto);
-        verify(bookingRepository, times(1)).save(booking);
+        verify(bookingRepository, times(1)).existsOverlapping(itemId, booking.getStart(), booking.getEnd());
+        verify(bookingRepository, times(1)).saveAndFlush(booking);
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, itemRepository, bookingMapper, bookingRepository);
+        verify(availabilityIndex, times(1)).add(itemId, 3L, userId, booking.getStart(), booking.getEnd());
+        verifyNoMoreInteractions(userRepository, itemRepository, bookingMapper, bookingRepository, availabilityIndex);
+    }
+
+    @Test
+    void create_whenPeriodOverlapsExistingBooking_thenConflictExceptionThrown() {
+        long userId = 1L;
+        long itemId = 1L;
+
+        CreationBookingDto creationBookingDto = new CreationBookingDto();
+        creationBookingDto.setItemId(itemId);
+
+        User booker = new User(userId, "John", "john@example.com");
+
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwner(new User(2L, "Nick", "nick@example.com"));
+        item.setAvailable(true);
+
+        Booking booking = new Booking();
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+
+        when(userRepository.findById(userId))
+                .thenReturn(Optional.of(booker));
+        when(itemRepository.findByIdForUpdate(creationBookingDto.getItemId()))
+                .thenReturn(Optional.of(item));
+        when(bookingMapper.toBooking(creationBookingDto))
+                .thenReturn(booking);
+        when(bookingRepository.existsOverlapping(itemId, booking.getStart(), booking.getEnd()))
+                .thenReturn(true);
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.create(userId, creationBookingDto));
+        verify(bookingRepository, times(1)).existsOverlapping(itemId, booking.getStart(), booking.getEnd());
+        verify(bookingRepository, never()).saveAndFlush(any());
+        verifyNoMoreInteractions(bookingRepository);
+    }
+
+    @Test
+    void create_whenExclusionConstraintViolated_thenConflictExceptionThrown() {
+        long userId = 1L;
+        long itemId = 1L;
+
+        CreationBookingDto creationBookingDto = new CreationBookingDto();
+        creationBookingDto.setItemId(itemId);
+
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwner(new User(2L, "Nick", "nick@example.com"));
+        item.setAvailable(true);
+
+        Booking booking = new Booking();
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+
+        when(userRepository.findById(userId))
+                .thenReturn(Optional.of(new User(userId, "John", "john@example.com")));
+        when(itemRepository.findByIdForUpdate(itemId))
+                .thenReturn(Optional.of(item));
+        when(bookingMapper.toBooking(creationBookingDto))
+                .thenReturn(booking);
+        when(bookingRepository.existsOverlapping(itemId, booking.getStart(), booking.getEnd()))
+                .thenReturn(false);
+        when(bookingRepository.saveAndFlush(booking))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("conflicting key value violates exclusion constraint "
+                                + "\"bookings_item_id_period_excl\"")));
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.create(userId, creationBookingDto));
+        verify(availabilityIndex, never()).add(anyLong(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void create_whenOtherIntegrityViolation_thenRethrown() {
+        long userId = 1L;
+        long itemId = 1L;
+
+        CreationBookingDto creationBookingDto = new CreationBookingDto();
+        creationBookingDto.setItemId(itemId);
+
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwner(new User(2L, "Nick", "nick@example.com"));
+        item.setAvailable(true);
+
+        Booking booking = new Booking();
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+
+        when(userRepository.findById(userId))
+                .thenReturn(Optional.of(new User(userId, "John", "john@example.com")));
+        when(itemRepository.findByIdForUpdate(itemId))
+                .thenReturn(Optional.of(item));
+        when(bookingMapper.toBooking(creationBookingDto))
+                .thenReturn(booking);
+        when(bookingRepository.existsOverlapping(itemId, booking.getStart(), booking.getEnd()))
+                .thenReturn(false);
+        when(bookingRepository.saveAndFlush(booking))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("null value in column \"item_id\"")));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> bookingService.create(userId, creationBookingDto));
     }
 
     @Test
@@ -104,16 +239,19 @@ class BookingServiceImplTest {
         item.setOwner(new User(2L, "Nick", "nick@example.com"));
         item.setAvailable(false);
 
+        when(bookingMapper.toBooking(creationBookingDto))
+                .thenReturn(new Booking());
         when(userRepository.findById(userId))
                 .thenReturn(Optional.of(booker));
-        when(itemRepository.findById(creationBookingDto.getItemId()))
+        when(itemRepository.findByIdForUpdate(creationBookingDto.getItemId()))
                 .thenReturn(Optional.of(item));
 
         assertThrows(ValidationException.class,
                 () -> bookingService.create(userId, creationBookingDto));
         verify(userRepository, times(1)).findById(userId);
-        verify(itemRepository, times(1)).findById(itemId);
+        verify(itemRepository, times(1)).findByIdForUpdate(itemId);
         verifyNoMoreInteractions(userRepository, itemRepository);
+        verifyNoInteractions(availabilityIndex, bookingRepository);
     }
 
     @Test
@@ -129,16 +267,19 @@ class BookingServiceImplTest {
         Item item = new Item();
         item.setOwner(booker);
 
+        when(bookingMapper.toBooking(creationBookingDto))
+                .thenReturn(new Booking());
         when(userRepository.findById(userId))
                 .thenReturn(Optional.of(booker));
-        when(itemRepository.findById(creationBookingDto.getItemId()))
+        when(itemRepository.findByIdForUpdate(creationBookingDto.getItemId()))
                 .thenReturn(Optional.of(item));
 
         assertThrows(NotFoundException.class,
                 () -> bookingService.create(userId, creationBookingDto));
         verify(userRepository, times(1)).findById(userId);
-        verify(itemRepository, times(1)).findById(itemId);
+        verify(itemRepository, times(1)).findByIdForUpdate(itemId);
         verifyNoMoreInteractions(userRepository, itemRepository);
+        verifyNoInteractions(availabilityIndex, bookingRepository);
     }
 
     @Test
@@ -151,16 +292,19 @@ class BookingServiceImplTest {
 
         User booker = new User(userId, "John", "john@example.com");
 
+        when(bookingMapper.toBooking(creationBookingDto))
+                .thenReturn(new Booking());
         when(userRepository.findById(userId))
                 .thenReturn(Optional.of(booker));
-        when(itemRepository.findById(creationBookingDto.getItemId()))
+        when(itemRepository.findByIdForUpdate(creationBookingDto.getItemId()))
                 .thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
                 () -> bookingService.create(userId, creationBookingDto));
         verify(userRepository, times(1)).findById(userId);
-        verify(itemRepository, times(1)).findById(itemId);
+        verify(itemRepository, times(1)).findByIdForUpdate(itemId);
         verifyNoMoreInteractions(userRepository, itemRepository);
+        verifyNoInteractions(availabilityIndex, bookingRepository);
     }
 
     @Test
@@ -195,8 +339,6 @@ class BookingServiceImplTest {
 
         when(bookingRepository.findById(bookingId))
                 .thenReturn(Optional.of(booking));
-        when(userRepository.findById(ownerId))
-                .thenReturn(Optional.of(owner));
         when(bookingRepository.save(booking))
                 .thenReturn(booking);
         when(bookingMapper.toBookingDto(booking))
@@ -213,7 +355,7 @@ class BookingServiceImplTest {
         assertEquals(owner, savedBooking.getItem().getOwner());
         assertEquals(BookingStatus.APPROVED, savedBooking.getStatus());
         verify(bookingRepository, times(1)).findById(bookingId);
-        verify(userRepository, times(1)).findById(ownerId);
+        verify(userIdCache, times(1)).checkExists(ownerId);
         verify(bookingRepository, times(1)).save(booking);
         verify(bookingMapper, times(1)).toBookingDto(booking);
         verifyNoMoreInteractions(bookingRepository, userRepository, bookingMapper);
@@ -228,16 +370,16 @@ class BookingServiceImplTest {
         User owner = new User(ownerId, "John", "john@example.com");
 
         Item item = new Item();
+        item.setId(2L);
         item.setOwner(owner);
 
         Booking booking = new Booking();
+        booking.setId(bookingId);
         booking.setItem(item);
         booking.setStatus(BookingStatus.WAITING);
 
         when(bookingRepository.findById(bookingId))
                 .thenReturn(Optional.of(booking));
-        when(userRepository.findById(ownerId))
-                .thenReturn(Optional.of(owner));
         when(bookingRepository.save(booking))
                 .thenReturn(booking);
         when(bookingMapper.toBookingDto(booking))
@@ -254,10 +396,11 @@ class BookingServiceImplTest {
         assertEquals(owner, savedBooking.getItem().getOwner());
         assertEquals(BookingStatus.REJECTED, savedBooking.getStatus());
         verify(bookingRepository, times(1)).findById(bookingId);
-        verify(userRepository, times(1)).findById(ownerId);
+        verify(userIdCache, times(1)).checkExists(ownerId);
         verify(bookingRepository, times(1)).save(booking);
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(bookingRepository, userRepository, bookingMapper);
+        verify(availabilityIndex, times(1)).remove(2L, bookingId);
+        verifyNoMoreInteractions(bookingRepository, userRepository, bookingMapper, availabilityIndex);
     }
 
     @Test
@@ -277,12 +420,10 @@ class BookingServiceImplTest {
 
         when(bookingRepository.findById(bookingId))
                 .thenReturn(Optional.of(booking));
-        when(userRepository.findById(ownerId))
-                .thenReturn(Optional.of(owner));
 
         assertThrows(ValidationException.class, () -> bookingService.confirmStatus(ownerId, bookingId, flag));
         verify(bookingRepository, times(1)).findById(bookingId);
-        verify(userRepository, times(1)).findById(ownerId);
+        verify(userIdCache, times(1)).checkExists(ownerId);
         verifyNoMoreInteractions(bookingRepository, userRepository);
     }
 
@@ -292,8 +433,6 @@ class BookingServiceImplTest {
         long bookingId = 1L;
         String flag = "true";
 
-        User owner = new User(ownerId, "John", "john@example.com");
-
         Item item = new Item();
         item.setOwner(new User(2L, "Jack", "jack@example.com"));
 
@@ -303,12 +442,10 @@ class BookingServiceImplTest {
 
         when(bookingRepository.findById(bookingId))
                 .thenReturn(Optional.of(booking));
-        when(userRepository.findById(ownerId))
-                .thenReturn(Optional.of(owner));
 
         assertThrows(NoAccessException.class, () -> bookingService.confirmStatus(ownerId, bookingId, flag));
         verify(bookingRepository, times(1)).findById(bookingId);
-        verify(userRepository, times(1)).findById(ownerId);
+        verify(userIdCache, times(1)).checkExists(ownerId);
         verifyNoMoreInteractions(bookingRepository, userRepository);
     }
 
@@ -322,12 +459,11 @@ class BookingServiceImplTest {
 
         when(bookingRepository.findById(bookingId))
                 .thenReturn(Optional.of(booking));
-        when(userRepository.findById(ownerId))
-                .thenReturn(Optional.empty());
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(ownerId);
 
         assertThrows(NotFoundException.class, () -> bookingService.confirmStatus(ownerId, bookingId, flag));
         verify(bookingRepository, times(1)).findById(bookingId);
-        verify(userRepository, times(1)).findById(ownerId);
+        verify(userIdCache, times(1)).checkExists(ownerId);
         verifyNoMoreInteractions(bookingRepository, userRepository);
     }
 
@@ -428,24 +564,61 @@ class BookingServiceImplTest {
         verifyNoMoreInteractions(bookingRepository);
     }
 
+    @Test
+    void getAllByUser_whenCursorGiven_thenFirstPageAfterCursorRequested() {
+        long userId = 1L;
+        Booking booking = new Booking();
+
+        when(bookingRepository.findList(any(), eq(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "start", "id")))))
+                .thenReturn(List.of(booking));
+        when(bookingMapper.toBookingDto(booking))
+                .thenReturn(new BookingDto());
+
+        CursorPage<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, "ALL",
+                BookingView.FULL, Paging.after(Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0), 5L), 10));
+
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getNext());
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
+        verify(bookingMapper, times(1)).toBookingDto(booking);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
+    }
+
+    @Test
+    void getAllByUser_whenPageFull_thenNextCursorBuiltFromLastBookingRead() {
+        long userId = 1L;
+        Booking booking = new Booking();
+        booking.setId(5L);
+        booking.setStart(LocalDateTime.of(2023, 7, 5, 15, 0));
+
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
+                .thenReturn(List.of(booking));
+        when(bookingMapper.toBookingDto(booking))
+                .thenReturn(new BookingDto());
+
+        CursorPage<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, "ALL",
+                BookingView.FULL, Paging.offset(0, 1));
+
+        assertEquals(Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0), 5L), result.getNext());
+    }
+
     @Test
     void getAllByUser_whenStateCurrent_thenCollectionOfBookingDtoReturned() {
         long userId = 1L;
         String state = "CURRENT";
 
-        User booker = new User();
         Booking booking = new Booking();
         booking.setStart(LocalDateTime.now().minusDays(1));
         booking.setEnd(LocalDateTime.now().plusDays(1));
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBooker(any(User.class), any(PageRequest.class)))
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
                 .thenReturn(List.of(booking));
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
 
-        List<BookingDto> result = bookingService.getAllByUser(userId, state, 0, 10);
+        List<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -455,10 +628,10 @@ class BookingServiceImplTest {
         Booking resultBooking = bookingArgumentCaptor.getValue();
 
         assertSame(booking, resultBooking);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByBooker(any(User.class), any(PageRequest.class));
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, bookingRepository, bookingMapper);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
     }
 
     @Test
@@ -466,19 +639,17 @@ class BookingServiceImplTest {
         long userId = 1L;
         String state = "PAST";
 
-        User booker = new User();
         Booking booking = new Booking();
         booking.setStart(LocalDateTime.now().minusDays(2));
         booking.setEnd(LocalDateTime.now().minusDays(1));
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBooker(any(User.class), any(PageRequest.class)))
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
                 .thenReturn(List.of(booking));
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
 
-        List<BookingDto> result = bookingService.getAllByUser(userId, state, 0, 10);
+        List<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -488,10 +659,10 @@ class BookingServiceImplTest {
         Booking resultBooking = bookingArgumentCaptor.getValue();
 
         assertSame(booking, resultBooking);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByBooker(any(User.class), any(PageRequest.class));
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, bookingRepository, bookingMapper);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
     }
 
     @Test
@@ -499,19 +670,17 @@ class BookingServiceImplTest {
         long userId = 1L;
         String state = "FUTURE";
 
-        User booker = new User();
         Booking booking = new Booking();
         booking.setStart(LocalDateTime.now().plusDays(1));
         booking.setEnd(LocalDateTime.now().plusDays(2));
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBooker(any(User.class), any(PageRequest.class)))
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
                 .thenReturn(List.of(booking));
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
 
-        List<BookingDto> result = bookingService.getAllByUser(userId, state, 0, 10);
+        List<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -521,10 +690,10 @@ class BookingServiceImplTest {
         Booking resultBooking = bookingArgumentCaptor.getValue();
 
         assertSame(booking, resultBooking);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByBooker(any(User.class), any(PageRequest.class));
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, bookingRepository, bookingMapper);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
     }
 
     @Test
@@ -532,18 +701,16 @@ class BookingServiceImplTest {
         long userId = 1L;
         String state = "WAITING";
 
-        User booker = new User();
         Booking booking = new Booking();
         booking.setStatus(BookingStatus.WAITING);
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBooker(any(User.class), any(PageRequest.class)))
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
                 .thenReturn(List.of(booking));
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
 
-        List<BookingDto> result = bookingService.getAllByUser(userId, state, 0, 10);
+        List<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -553,10 +720,10 @@ class BookingServiceImplTest {
         Booking resultBooking = bookingArgumentCaptor.getValue();
 
         assertSame(booking, resultBooking);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByBooker(any(User.class), any(PageRequest.class));
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, bookingRepository, bookingMapper);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
     }
 
     @Test
@@ -564,18 +731,16 @@ class BookingServiceImplTest {
         long userId = 1L;
         String state = "REJECTED";
 
-        User booker = new User();
         Booking booking = new Booking();
         booking.setStatus(BookingStatus.REJECTED);
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBooker(any(User.class), any(PageRequest.class)))
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
                 .thenReturn(List.of(booking));
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
 
-        List<BookingDto> result = bookingService.getAllByUser(userId, state, 0, 10);
+        List<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -585,10 +750,10 @@ class BookingServiceImplTest {
         Booking resultBooking = bookingArgumentCaptor.getValue();
 
         assertSame(booking, resultBooking);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByBooker(any(User.class), any(PageRequest.class));
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, bookingRepository, bookingMapper);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
     }
 
     @Test
@@ -596,17 +761,15 @@ class BookingServiceImplTest {
         long userId = 1L;
         String state = "ALL";
 
-        User booker = new User();
         Booking booking = new Booking();
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBooker(any(User.class), any(PageRequest.class)))
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
                 .thenReturn(List.of(booking));
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
 
-        List<BookingDto> result = bookingService.getAllByUser(userId, state, 0, 10);
+        List<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -616,10 +779,10 @@ class BookingServiceImplTest {
         Booking resultBooking = bookingArgumentCaptor.getValue();
 
         assertSame(booking, resultBooking);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByBooker(any(User.class), any(PageRequest.class));
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, bookingRepository, bookingMapper);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
     }
 
     @Test
@@ -627,17 +790,15 @@ class BookingServiceImplTest {
         long userId = 1L;
         String state = "";
 
-        User booker = new User();
         Booking booking = new Booking();
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBooker(any(User.class), any(PageRequest.class)))
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
                 .thenReturn(List.of(booking));
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
 
-        List<BookingDto> result = bookingService.getAllByUser(userId, state, 0, 10);
+        List<BookingDto> result = bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -647,10 +808,10 @@ class BookingServiceImplTest {
         Booking resultBooking = bookingArgumentCaptor.getValue();
 
         assertSame(booking, resultBooking);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByBooker(any(User.class), any(PageRequest.class));
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, bookingRepository, bookingMapper);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
     }
 
     @Test
@@ -658,19 +819,12 @@ class BookingServiceImplTest {
         long userId = 1L;
         String state = "Unknown state";
 
-        User booker = new User();
-        Booking booking = new Booking();
+        assertThrows(ValidationException.class, () -> bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)));
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBooker(any(User.class), any(PageRequest.class)))
-                .thenReturn(List.of(booking));
-
-        assertThrows(ValidationException.class, () -> bookingService.getAllByUser(userId, state, 0, 10));
-
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByBooker(any(User.class), any(PageRequest.class));
-        verifyNoMoreInteractions(userRepository, bookingRepository);
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verifyNoMoreInteractions(userIdCache);
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
@@ -678,13 +832,13 @@ class BookingServiceImplTest {
         long userId = 999L;
         String state = "CURRENT";
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.empty());
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(userId, "User not found");
 
-        assertThrows(NotFoundException.class, () -> bookingService.getAllByUser(userId, state, 0, 10));
+        assertThrows(NotFoundException.class, () -> bookingService.getAll(userId, BookingRole.BOOKER, state,
+                BookingView.FULL, Paging.offset(0, 10)));
 
-        verify(userRepository, times(1)).findById(userId);
-        verifyNoMoreInteractions(userRepository);
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verifyNoMoreInteractions(userIdCache);
     }
 
     @Test
@@ -692,17 +846,15 @@ class BookingServiceImplTest {
         long userId = 1L;
         String state = "ALL";
 
-        User itemOwner = new User();
         Booking booking = new Booking();
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(itemOwner));
-        when(bookingRepository.findAllByItemOwner(any(User.class), any(PageRequest.class)))
+        when(bookingRepository.findList(any(), any(PageRequest.class)))
                 .thenReturn(List.of(booking));
         when(bookingMapper.toBookingDto(booking))
                 .thenReturn(new BookingDto());
 
-        List<BookingDto> result = bookingService.getAllByItemOwner(userId, state, 0, 10);
+        List<BookingDto> result = bookingService.getAll(userId, BookingRole.ITEM_OWNER, state,
+                BookingView.FULL, Paging.offset(0, 10)).getContent();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -712,9 +864,87 @@ class BookingServiceImplTest {
         Booking resultBooking = bookingArgumentCaptor.getValue();
 
         assertSame(booking, resultBooking);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByItemOwner(any(User.class), any(PageRequest.class));
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findList(any(), any(PageRequest.class));
         verify(bookingMapper, times(1)).toBookingDto(booking);
-        verifyNoMoreInteractions(userRepository, bookingRepository, bookingMapper);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
+    }
+
+    @Test
+    void getAllByItemOwner_whenStateUnknown_thenValidationExceptionThrown() {
+        long userId = 1L;
+        String state = "Unknown state";
+
+        assertThrows(ValidationException.class, () -> bookingService.getAll(userId, BookingRole.ITEM_OWNER, state,
+                BookingView.FULL, Paging.offset(0, 10)));
+
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verifyNoMoreInteractions(userIdCache);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getAllCompactByItemOwner_whenPageFull_thenCompactBookingsMappedFromViewsWithNextCursor() {
+        long userId = 1L;
+        CompactBookingView view = new CompactBookingView(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1),
+                BookingStatus.WAITING, 2L, "Hammer", 3L);
+        CompactBookingDto bookingDto = new CompactBookingDto();
+
+        when(bookingRepository.findCompactList(any(), any(PageRequest.class)))
+                .thenReturn(List.of(view));
+        when(bookingMapper.toCompactBookingDto(view))
+                .thenReturn(bookingDto);
+
+        CursorPage<CompactBookingDto> result = bookingService.getAll(userId, BookingRole.ITEM_OWNER, "ALL",
+                BookingView.COMPACT, Paging.offset(0, 1));
+
+        assertEquals(List.of(bookingDto), result.getContent());
+        assertEquals(Cursor.of(view.getStartDate(), 1L), result.getNext());
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).findCompactList(any(), any(PageRequest.class));
+        verify(bookingMapper, times(1)).toCompactBookingDto(view);
+        verifyNoMoreInteractions(userIdCache, bookingRepository, bookingMapper);
+    }
+
+    @Test
+    void getAllCompactByUser_whenStateUnknown_thenValidationExceptionThrown() {
+        long userId = 1L;
+
+        assertThrows(ValidationException.class, () -> bookingService.getAll(userId, BookingRole.BOOKER, "Unknown",
+                BookingView.COMPACT, Paging.offset(0, 10)));
+
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void exportByItemOwner_whenUserExists_thenEveryBookingPassedAndStreamClosed() {
+        long userId = 1L;
+        BookingExportView first = mock(BookingExportView.class);
+        BookingExportView second = mock(BookingExportView.class);
+        AtomicBoolean closed = new AtomicBoolean();
+
+        when(bookingRepository.streamAllByItemOwnerId(userId))
+                .thenReturn(Stream.of(first, second).onClose(() -> closed.set(true)));
+
+        List<BookingExportView> exported = new ArrayList<>();
+        bookingService.exportByItemOwner(userId, exported::add);
+
+        assertEquals(List.of(first, second), exported);
+        assertTrue(closed.get());
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verify(bookingRepository, times(1)).streamAllByItemOwnerId(userId);
+        verifyNoMoreInteractions(userIdCache, bookingRepository);
+    }
+
+    @Test
+    void exportByItemOwner_whenUserNotFound_thenNotFoundExceptionThrown() {
+        long userId = 1L;
+
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(userId, "User not found");
+
+        assertThrows(NotFoundException.class, () -> bookingService.exportByItemOwner(userId, booking -> {
+        }));
+
+        verifyNoInteractions(bookingRepository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,202 @@
+package ru.practicum.shareit.booking.service.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingPeriodView;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.ItemAvailabilityIndex;
+import ru.practicum.shareit.util.datasource.ReplicaProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemAvailabilityIndexTest {
+    private static final LocalDateTime DAY = LocalDateTime.now().plusDays(1).withNano(0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+    private ItemAvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        availabilityIndex = new ItemAvailabilityIndex(bookingRepository, new ReplicaProperties(), true);
+    }
+
+    @Test
+    void isBooked_whenReloaded_thenPeriodsOfLoadedBookingsTaken() {
+        when(bookingRepository.findPeriodsEndingAfter(any(), anyCollection()))
+                .thenReturn(List.of(period(1L, 1L, 10L, DAY, DAY.plusDays(2))));
+
+        availabilityIndex.reload();
+
+        assertTrue(availabilityIndex.isBooked(1L, DAY.plusDays(1), DAY.plusDays(3)));
+        assertTrue(availabilityIndex.isBooked(1L, DAY.minusDays(1), DAY.plusHours(1)));
+        assertFalse(availabilityIndex.isBooked(1L, DAY.plusDays(2), DAY.plusDays(3)));
+        assertFalse(availabilityIndex.isBooked(1L, DAY.minusDays(1), DAY));
+        assertFalse(availabilityIndex.isBooked(2L, DAY, DAY.plusDays(2)));
+    }
+
+    @Test
+    void isBooked_whenPeriodInsideLongerOne_thenGapAfterShortPeriodStillBooked() {
+        when(bookingRepository.findPeriodsEndingAfter(any(), anyCollection()))
+                .thenReturn(List.of(
+                        period(1L, 1L, 10L, DAY, DAY.plusDays(10)),
+                        period(1L, 2L, 10L, DAY.plusDays(1), DAY.plusDays(2))));
+
+        availabilityIndex.reload();
+
+        assertTrue(availabilityIndex.isBooked(1L, DAY.plusDays(5), DAY.plusDays(6)));
+        assertFalse(availabilityIndex.isBooked(1L, DAY.plusDays(10), DAY.plusDays(11)));
+    }
+
+    @Test
+    void reload_whenBookingAddedWhileLoading_thenBookingKept() {
+        when(bookingRepository.findPeriodsEndingAfter(any(), anyCollection())).thenAnswer(invocation -> {
+            availabilityIndex.add(2L, 2L, 10L, DAY, DAY.plusDays(1));
+            return List.of(period(1L, 1L, 10L, DAY, DAY.plusDays(1)));
+        });
+
+        availabilityIndex.reload();
+
+        assertTrue(availabilityIndex.isBooked(1L, DAY, DAY.plusDays(1)));
+        assertTrue(availabilityIndex.isBooked(2L, DAY, DAY.plusDays(1)));
+    }
+
+    @Test
+    void reload_whenBookingRemovedWhileLoading_thenBookingReleased() {
+        when(bookingRepository.findPeriodsEndingAfter(any(), anyCollection())).thenAnswer(invocation -> {
+            availabilityIndex.remove(1L, 1L);
+            // read before the removal was committed
+            return List.of(period(1L, 1L, 10L, DAY, DAY.plusDays(1)));
+        });
+
+        availabilityIndex.reload();
+
+        assertFalse(availabilityIndex.isBooked(1L, DAY, DAY.plusDays(1)));
+    }
+
+    @Test
+    void add_whenNoTransaction_thenPeriodTakenAndReleasedOnRemove() {
+        availabilityIndex.add(1L, 1L, 10L, DAY, DAY.plusDays(1));
+
+        assertTrue(availabilityIndex.isBooked(1L, DAY, DAY.plusDays(1)));
+
+        availabilityIndex.remove(1L, 1L);
+
+        assertFalse(availabilityIndex.isBooked(1L, DAY, DAY.plusDays(1)));
+    }
+
+    @Test
+    void add_whenInsideTransaction_thenPeriodTakenOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            availabilityIndex.add(1L, 1L, 10L, DAY, DAY.plusDays(1));
+
+            assertFalse(availabilityIndex.isBooked(1L, DAY, DAY.plusDays(1)));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(availabilityIndex.isBooked(1L, DAY, DAY.plusDays(1)));
+    }
+
+    @Test
+    void removeUser_whenUserDeleted_thenTheirBookingsAndItemsReleased() {
+        availabilityIndex.add(1L, 1L, 10L, DAY, DAY.plusDays(1));
+        availabilityIndex.add(1L, 2L, 20L, DAY.plusDays(2), DAY.plusDays(3));
+        availabilityIndex.add(3L, 3L, 20L, DAY, DAY.plusDays(1));
+
+        availabilityIndex.removeUser(10L, List.of(3L));
+
+        assertFalse(availabilityIndex.isBooked(1L, DAY, DAY.plusDays(1)));
+        assertTrue(availabilityIndex.isBooked(1L, DAY.plusDays(2), DAY.plusDays(3)));
+        assertFalse(availabilityIndex.isBooked(3L, DAY, DAY.plusDays(1)));
+    }
+
+    @Test
+    void prune_whenPeriodEnded_thenOnlyItDropped() {
+        when(bookingRepository.findPeriodsEndingAfter(any(), anyCollection()))
+                .thenReturn(List.of(
+                        period(1L, 1L, 10L, DAY.minusDays(5), DAY.minusDays(3)),
+                        period(2L, 2L, 10L, DAY.minusDays(5), DAY.plusDays(1))));
+        availabilityIndex.reload();
+
+        assertTrue(availabilityIndex.isBooked(1L, DAY.minusDays(4), DAY.minusDays(3)));
+
+        availabilityIndex.prune();
+
+        assertFalse(availabilityIndex.isBooked(1L, DAY.minusDays(4), DAY.minusDays(3)));
+        assertTrue(availabilityIndex.isBooked(2L, DAY.minusDays(4), DAY.minusDays(3)));
+    }
+
+    @Test
+    void findBooked_whenEnabled_thenBookedItemsTakenFromIndex() {
+        availabilityIndex.add(1L, 1L, 10L, DAY, DAY.plusDays(1));
+
+        assertEquals(Set.of(1L), availabilityIndex.findBooked(List.of(1L, 2L), DAY, DAY.plusDays(1)));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void findBooked_whenReplicaConfigured_thenBookedItemsQueriedAndIndexNotLoaded() {
+        ReplicaProperties replicaProperties = new ReplicaProperties();
+        replicaProperties.setUrl("jdbc:postgresql://replica:5432/shareit");
+        availabilityIndex = new ItemAvailabilityIndex(bookingRepository, replicaProperties, true);
+        when(bookingRepository.findItemIdsBookedBetween(eq(List.of(1L, 2L)), eq(DAY), eq(DAY.plusDays(1)),
+                anyCollection()))
+                .thenReturn(Set.of(2L));
+
+        availabilityIndex.reload();
+        availabilityIndex.add(1L, 1L, 10L, DAY, DAY.plusDays(1));
+
+        assertFalse(availabilityIndex.isEnabled());
+        assertEquals(Set.of(2L), availabilityIndex.findBooked(List.of(1L, 2L), DAY, DAY.plusDays(1)));
+        assertFalse(availabilityIndex.isBooked(1L, DAY, DAY.plusDays(1)));
+    }
+
+    private static BookingPeriodView period(long itemId, long id, long bookerId,
+                                            LocalDateTime start, LocalDateTime end) {
+        return new BookingPeriodView() {
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public LocalDateTime getStartDate() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndDate() {
+                return end;
+            }
+
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getBookerId() {
+                return bookerId;
+            }
+        };
+    }
+}
@@ -11,18 +11,26 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreationCommentDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.util.pagination.Cursor;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -315,6 +323,29 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].comments", hasSize(0)));
     }
 
+    @Test
+    void getAllByOwner_whenAfterGiven_thenItemsAfterCursorWithNextCursorHeaderReturned() throws Exception {
+        long userId = 1L;
+
+        ItemDto expectedItemDto = ItemDto.builder()
+                .id(3L)
+                .name("Heavy hammer")
+                .comments(Collections.emptyList())
+                .build();
+
+        when(itemService.getAllByOwnerId(userId, Cursor.of(2L), 1)).thenReturn(List.of(expectedItemDto));
+
+        mvc.perform(get("/items?size=1&after=" + Cursor.of(2L).encode())
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(expectedItemDto.getId()), Long.class))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER, Cursor.of(3L).encode()));
+
+        verify(itemService, never()).getAllByOwnerId(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     void getAllByOwner_whenFromOrSizeNotValid_thenResponseStatusServerError() throws Exception {
         long userId = 1L;
@@ -346,6 +377,102 @@ class ItemControllerTest {
         verify(itemService, never()).getAllByOwnerId(anyLong(), anyInt(), anyInt());
     }
 
+    @Test
+    void createAll_whenJsonArray_thenEveryItemPassedToService() throws Exception {
+        long userId = 1L;
+        List<String> names = new ArrayList<>();
+
+        when(itemService.createAll(anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    Iterator<ItemDto> items = invocation.getArgument(1);
+                    items.forEachRemaining(item -> names.add(item.getName()));
+                    return new ItemBatchResultDto(names.size(), 0, List.of());
+                });
+
+        mvc.perform(post("/items/batch")
+                        .content("[{\"name\":\"Hammer\"},{\"name\":\"Saw\"}]")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(2)));
+
+        assertEquals(List.of("Hammer", "Saw"), names);
+    }
+
+    @Test
+    void createAll_whenNdjson_thenEveryItemPassedToService() throws Exception {
+        long userId = 1L;
+        List<String> names = new ArrayList<>();
+
+        when(itemService.createAll(anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    Iterator<ItemDto> items = invocation.getArgument(1);
+                    items.forEachRemaining(item -> names.add(item.getName()));
+                    return new ItemBatchResultDto(names.size(), 0, List.of());
+                });
+
+        mvc.perform(post("/items/batch")
+                        .content("{\"name\":\"Hammer\"}\n{\"name\":\"Saw\"}\n{\"name\":\"Drill\"}\n")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(3)));
+
+        assertEquals(List.of("Hammer", "Saw", "Drill"), names);
+    }
+
+    @Test
+    void createAll_whenValueMalformed_thenResponseStatusBadRequest() throws Exception {
+        long userId = 1L;
+
+        when(itemService.createAll(anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    Iterator<ItemDto> items = invocation.getArgument(1);
+                    items.forEachRemaining(item -> { });
+                    return new ItemBatchResultDto();
+                });
+
+        mvc.perform(post("/items/batch")
+                        .content("[{\"name\":\"Hammer\"},{\"available\":\"maybe\"}]")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllFreeByOwnerId_whenPeriodGiven_thenResponseStatusOkWithItemDtoCollectionInBody() throws Exception {
+        long ownerId = 1L;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 5, 10, 0);
+        LocalDateTime end = LocalDateTime.of(2030, 1, 7, 10, 0);
+
+        ItemDto expectedItemDto = ItemDto.builder()
+                .id(1L)
+                .ownerId(ownerId)
+                .name("Heavy hammer")
+                .description("Useful tool")
+                .available(true)
+                .comments(Collections.emptyList())
+                .build();
+
+        when(itemService.getAllFreeByOwnerId(ownerId, start, end, 0, 10))
+                .thenReturn(List.of(expectedItemDto));
+
+        mvc.perform(get("/items/available?start=2030-01-05T10:00:00&end=2030-01-07T10:00:00")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", ownerId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(expectedItemDto.getId()), Long.class))
+                .andExpect(jsonPath("$[0].name", is(expectedItemDto.getName())));
+    }
+
     @Test
     void getAllBySubstring_whenFromAndSizeValid_thenResponseStatusOkWithItemDtoCollectionInBody() throws Exception {
         long userId = 1L;
@@ -495,4 +622,21 @@ class ItemControllerTest {
 
         verify(itemService, never()).createComment(anyLong(), anyLong(), any(CreationCommentDto.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllFieldsByOwnerId_whenFieldsGiven_thenSelectedFieldsWithNextCursorReturned() throws Exception {
+        long userId = 1L;
+
+        when(itemService.getAllFieldsByOwnerId(userId, "name", 0, 1))
+                .thenReturn(List.of(Map.of("id", 2L, "name", "Hammer")));
+
+        mvc.perform(get("/items?fields=name&from=0&size=1")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(2L), Long.class))
+                .andExpect(jsonPath("$[0].name", is("Hammer")))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER, Cursor.of(2L).encode()));
+
+        verify(itemService, never()).getAllByOwnerId(anyLong(), anyInt(), anyInt());
+    }
+}
@@ -53,10 +53,37 @@ class ItemRepositoryTest {
     }
 
     @Test
-    void findAllByNameOrDescriptionContainingIgnoreCase_whenPersist_thenCollectionOfItemsReturned() {
+    void findAllByOwnerIdAfter_whenPersist_thenItemsWithGreaterIdReturned() {
+        Item nextItem = new Item();
+        nextItem.setOwner(owner);
+        nextItem.setName("Sledgehammer");
+        nextItem.setDescription("Heavy tool");
+        nextItem.setAvailable(true);
+
+        itemRepository.save(nextItem);
+
+        List<Item> maybeItems = itemRepository.findAllByOwnerIdAfter(
+                owner.getId(),
+                item.getId(),
+                PageRequest.of(0, 10)
+        );
+
+        assertEquals(List.of(nextItem), maybeItems);
+    }
+
+    @Test
+    void searchAvailable_whenPersist_thenCollectionOfAvailableItemsReturned() {
+        Item availableItem = new Item();
+        availableItem.setOwner(owner);
+        availableItem.setName("Sledgehammer");
+        availableItem.setDescription("Heavy tool");
+        availableItem.setAvailable(true);
+
+        itemRepository.save(availableItem);
+
         String search = "hAm";
 
-        List<Item> maybeItems = itemRepository.findBySearchTermIgnoreCase(
+        List<Item> maybeItems = itemRepository.searchAvailable(
                 search,
                 PageRequest.of(0, 10)
         );
@@ -65,6 +92,13 @@ class ItemRepositoryTest {
         assertEquals(1, maybeItems.size());
 
         Item actualItem = maybeItems.get(0);
-        assertSame(item, actualItem);
+        assertSame(availableItem, actualItem);
+    }
+
+    @Test
+    void toPrefixTsQuery_whenTextWithSeveralWords_thenPrefixTermsJoinedReturned() {
+        assertEquals("handy:* & tool:*", ItemSearchRepositoryImpl.toPrefixTsQuery("Handy  TOOL!"));
+        assertEquals("дрель:*", ItemSearchRepositoryImpl.toPrefixTsQuery("Дрель"));
+        assertEquals("", ItemSearchRepositoryImpl.toPrefixTsQuery("&|!:*"));
     }
-}
\ No newline at end of file
+}
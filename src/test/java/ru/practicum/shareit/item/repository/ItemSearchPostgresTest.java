@@ -0,0 +1,122 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.datasource.EnabledOnPostgres;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * The search query of PostgreSQL, which uses the trigram indexes and ranking of schema-postgresql.sql.
+ */
+@SpringBootTest
+@EnabledOnPostgres
+class ItemSearchPostgresTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserDto owner;
+    private ItemDto sledgehammer;
+    private ItemDto hammer;
+    private ItemDto brokenHammer;
+
+    @BeforeEach
+    public void addData() {
+        owner = userService.create(new UserDto(null, "John", "john.search@example.com"));
+        sledgehammer = createItem("Zylosledgehammer", "Heavy tool", true);
+        hammer = createItem("Zylohammer", "Handy tool, the zylohammer of choice", true);
+        brokenHammer = createItem("Zylohammer", "Broken", false);
+    }
+
+    @AfterEach
+    public void deleteData() {
+        userService.deleteById(owner.getId());
+    }
+
+    @Test
+    void getAllBySubstring_whenTextInsideWord_thenItemFound() {
+        assertThat(searchIds("OSLEDGEHAM", 0, 10), equalTo(List.of(sledgehammer.getId())));
+    }
+
+    @Test
+    void getAllBySubstring_whenTextStartsWord_thenItemRankedFirst() {
+        assertThat(searchIds("zylohammer", 0, 10), equalTo(List.of(hammer.getId())));
+        assertThat(searchIds("zylo", 0, 10), equalTo(List.of(hammer.getId(), sledgehammer.getId())));
+        assertThat(searchIds("hammer", 0, 10), equalTo(List.of(sledgehammer.getId(), hammer.getId())));
+    }
+
+    @Test
+    void getAllBySubstring_whenPaged_thenRankedOrderKept() {
+        assertThat(searchIds("zylo", 1, 1), equalTo(List.of(sledgehammer.getId())));
+    }
+
+    @Test
+    void getAllBySubstring_whenTextHasNoWords_thenSubstringStillSearched() {
+        ItemDto punctuated = createItem("Zylotool !?", "Odd name", true);
+
+        assertThat(searchIds("!?", 0, 10), equalTo(List.of(punctuated.getId())));
+    }
+
+    @Test
+    void searchQuery_whenSequentialScanDisabled_thenTrigramIndexesUsed() {
+        String plan = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+            }
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN SELECT id FROM items " +
+                    "WHERE is_available = true AND (name ILIKE ? OR description ILIKE ?)")) {
+                explain.setString(1, "%ledgeham%");
+                explain.setString(2, "%ledgeham%");
+                StringBuilder lines = new StringBuilder();
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    while (resultSet.next()) {
+                        lines.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+                return lines.toString();
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("RESET enable_seqscan");
+                }
+            }
+        });
+
+        assertThat(plan, containsString("items_available_name_trgm_idx"));
+        assertThat(plan, containsString("items_available_description_trgm_idx"));
+    }
+
+    private ItemDto createItem(String name, String description, boolean available) {
+        return itemService.create(owner.getId(), ItemDto.builder()
+                .name(name)
+                .description(description)
+                .available(available)
+                .build());
+    }
+
+    private List<Long> searchIds(String text, int from, int size) {
+        return itemService.getAllBySubstring(owner.getId(), text, from, size).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,7 @@ import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreationCommentDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
@@ -18,6 +21,7 @@ import ru.practicum.shareit.user.model.User;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -61,6 +65,58 @@ class ItemServiceImplTest {
         assertThat(createdItem.getAvailable(), equalTo(itemDto.getAvailable()));
     }
 
+    @Test
+    void createAll_whenRowsValidAndNot_thenValidRowsInsertedInBatches() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        List<ItemDto> itemDtos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            itemDtos.add(ItemDto.builder()
+                    .name("Tool #" + i)
+                    .description("Imported tool")
+                    .available(i != 7 ? true : null)
+                    .requestId(i == 9 ? Long.MAX_VALUE : null)
+                    .build());
+        }
+
+        statistics.clear();
+        ItemBatchResultDto result = itemService.createAll(itemOwner.getId(), itemDtos.iterator());
+        em.flush();
+
+        assertThat(result.getCreated(), equalTo(118));
+        assertThat(result.getRejected(), equalTo(2));
+        assertThat(result.getRows(), hasSize(120));
+        assertThat(result.getRows().get(7).getId(), nullValue());
+        assertThat(result.getRows().get(7).getError(), containsString("available"));
+        assertThat(result.getRows().get(9).getError(), containsString("Request with id"));
+        assertThat(result.getRows().get(0).getId(), notNullValue());
+        assertThat(em.createQuery("SELECT COUNT(i) FROM Item i WHERE i.owner.id = :ownerId", Long.class)
+                .setParameter("ownerId", itemOwner.getId())
+                .getSingleResult(), equalTo(118L));
+        // owner, request lookup, a few sequence calls and three insert batches instead of 118 inserts
+        assertThat(statistics.getPrepareStatementCount(), lessThan(15L));
+    }
+
+    @Test
+    void createAll_whenRowsSpanSeveralChunks_thenEveryChunkSaved() {
+        List<ItemDto> itemDtos = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            itemDtos.add(ItemDto.builder()
+                    .name("Tool #" + i)
+                    .description("Imported tool")
+                    .available(true)
+                    .build());
+        }
+
+        ItemBatchResultDto result = itemService.createAll(itemOwner.getId(), itemDtos.iterator());
+
+        assertThat(result.getCreated(), equalTo(501));
+        assertThat(result.getRows().get(500).getId(), notNullValue());
+        assertThat(em.contains(itemOwner), equalTo(false));
+        assertThat(em.createQuery("SELECT COUNT(i) FROM Item i WHERE i.owner.id = :ownerId", Long.class)
+                .setParameter("ownerId", itemOwner.getId())
+                .getSingleResult(), equalTo(501L));
+    }
+
     @Test
     void getById_whenPersist_thenItemDtoReturned() {
         Item item = new Item();
@@ -212,4 +268,51 @@ class ItemServiceImplTest {
         assertThat(createdComment.getUser().getId(), equalTo(booker.getId()));
         assertThat(createdComment.getCreated(), notNullValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllByOwnerId_whenPageGrows_thenNumberOfStatementsStaysTheSame() {
+        User booker = new User(null, "Kyle", "kyle@example.com");
+        em.persist(booker);
+        for (int i = 0; i < 6; i++) {
+            Item item = new Item();
+            item.setOwner(itemOwner);
+            item.setName("Hammer");
+            item.setDescription("Handy tool");
+            item.setAvailable(true);
+            em.persist(item);
+
+            Booking booking = new Booking();
+            booking.setStart(LocalDateTime.now().minusDays(2));
+            booking.setEnd(LocalDateTime.now().minusDays(1));
+            booking.setItem(item);
+            booking.setBooker(booker);
+            booking.setStatus(BookingStatus.APPROVED);
+            em.persist(booking);
+
+            Comment comment = new Comment();
+            comment.setItem(item);
+            comment.setUser(booker);
+            comment.setText("Good hammer");
+            comment.setCreated(LocalDateTime.now());
+            em.persist(comment);
+        }
+
+        // the first call also remembers the owner in UserIdCache
+        itemService.getAllByOwnerId(itemOwner.getId(), 0, 1);
+
+        long smallPageStatements = countStatements(() -> itemService.getAllByOwnerId(itemOwner.getId(), 0, 2));
+        long largePageStatements = countStatements(() -> itemService.getAllByOwnerId(itemOwner.getId(), 0, 6));
+
+        assertThat(largePageStatements, equalTo(smallPageStatements));
+    }
+
+    private long countStatements(Runnable action) {
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item.service.unit;
 
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -7,14 +9,21 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingShortView;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.ItemAvailabilityIndex;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.dto.CreationCommentDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
@@ -27,15 +36,31 @@ import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdCache;
+import ru.practicum.shareit.util.etag.Etag;
+import ru.practicum.shareit.util.etag.EtagCache;
 import ru.practicum.shareit.util.exception.NotFoundException;
 import ru.practicum.shareit.util.exception.ValidationException;
+import ru.practicum.shareit.util.fields.FieldRepository;
 
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +70,8 @@ class ItemServiceImplTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserIdCache userIdCache;
+    @Mock
     private BookingRepository bookingRepository;
     @Mock
     private CommentRepository commentRepository;
@@ -56,6 +83,18 @@ class ItemServiceImplTest {
     private CommentMapper commentMapper;
     @Mock
     private ItemMapper itemMapper;
+    @Mock
+    private ItemAvailabilityIndex availabilityIndex;
+    @Mock
+    private Validator validator;
+    @Mock
+    private EtagCache etagCache;
+    @Mock
+    private FieldRepository fieldRepository;
+    @Mock
+    private TransactionOperations transactionOperations;
+    @Mock
+    private EntityManager entityManager;
     @InjectMocks
     private ItemServiceImpl itemService;
     @Captor
@@ -166,10 +205,10 @@ class ItemServiceImplTest {
         long userId = 1L;
         long id = 1L;
 
-        User user = new User();
         Item item = new Item();
+        item.setId(id);
+        item.setOwner(new User(2L, "John", "john@example.com"));
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(itemRepository.findById(id)).thenReturn(Optional.of(item));
 
         ItemDto itemDto = new ItemDto();
@@ -180,10 +219,11 @@ class ItemServiceImplTest {
         ItemDto resultItemDto = itemService.getById(userId, id);
 
         assertEquals(itemDto, resultItemDto);
-        verify(userRepository, times(1)).findById(userId);
+        verify(userIdCache, times(1)).checkExists(userId);
         verify(itemRepository, times(1)).findById(id);
         verify(itemMapper, times(1)).toItemDto(item);
-        verifyNoMoreInteractions(userRepository, itemRepository, itemMapper);
+        verify(itemMapper, times(1)).addVersions(any(Etag.class), eq(item));
+        verifyNoMoreInteractions(userIdCache, itemRepository, itemMapper);
     }
 
     @Test
@@ -191,10 +231,10 @@ class ItemServiceImplTest {
         long userId = 1L;
         long id = 1L;
 
-        User user = new User();
         Item item = new Item();
+        item.setId(id);
+        item.setOwner(new User(userId, "John", "john@example.com"));
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(itemRepository.findById(id)).thenReturn(Optional.of(item));
 
         ItemDto itemDto = new ItemDto();
@@ -202,42 +242,40 @@ class ItemServiceImplTest {
 
         when(itemMapper.toItemDto(item)).thenReturn(itemDto);
 
-        Booking lastBooking = new Booking();
-        Booking nextBooking = new Booking();
+        ItemBookingShortView lastBooking = mock(ItemBookingShortView.class);
+        when(lastBooking.getItemId()).thenReturn(id);
+        when(lastBooking.getKind()).thenReturn(ItemBookingShortView.LAST);
+        ItemBookingShortView nextBooking = mock(ItemBookingShortView.class);
+        when(nextBooking.getItemId()).thenReturn(id);
+        when(nextBooking.getKind()).thenReturn(ItemBookingShortView.NEXT);
+        LocalDateTime nextStart = LocalDateTime.now().plusDays(1);
+        when(nextBooking.getStartDate()).thenReturn(nextStart);
         BookingShortDto lastBookingShortDto = new BookingShortDto();
         BookingShortDto nextBookingShortDto = new BookingShortDto();
 
-        when(bookingRepository.findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(any(Item.class),
-                any(LocalDateTime.class),
-                any(BookingStatus.class)))
-                .thenReturn(Optional.of(lastBooking));
+        when(bookingRepository.findLastAndNextByItemId(eq(id), any(LocalDateTime.class)))
+                .thenReturn(List.of(lastBooking, nextBooking));
         when(bookingMapper.toBookingShortDto(lastBooking))
                 .thenReturn(lastBookingShortDto);
-        when(bookingRepository.findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(any(Item.class),
-                any(LocalDateTime.class),
-                any(BookingStatus.class)))
-                .thenReturn(Optional.of(nextBooking));
         when(bookingMapper.toBookingShortDto(nextBooking))
                 .thenReturn(nextBookingShortDto);
 
         ItemDto resultItemDto = itemService.getById(userId, id);
 
         assertEquals(itemDto, resultItemDto);
-        assertNotNull(resultItemDto.getLastBooking());
-        assertNotNull(resultItemDto.getNextBooking());
-        verify(userRepository, times(1)).findById(userId);
+        assertSame(lastBookingShortDto, resultItemDto.getLastBooking());
+        assertSame(nextBookingShortDto, resultItemDto.getNextBooking());
+        verify(userIdCache, times(1)).checkExists(userId);
         verify(itemRepository, times(1)).findById(id);
         verify(itemMapper, times(1)).toItemDto(item);
         verify(bookingRepository, times(1))
-                .findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(any(Item.class),
-                        any(LocalDateTime.class),
-                        any(BookingStatus.class));
-        verify(bookingRepository, times(1))
-                .findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(any(Item.class),
-                        any(LocalDateTime.class),
-                        any(BookingStatus.class));
-        verify(bookingMapper, times(2)).toBookingShortDto(any(Booking.class));
-        verifyNoMoreInteractions(userRepository, itemRepository, itemMapper, bookingRepository, bookingMapper);
+                .findLastAndNextByItemId(eq(id), any(LocalDateTime.class));
+        verify(bookingMapper, times(2)).toBookingShortDto(any(ItemBookingShortView.class));
+        verify(itemMapper, times(1)).addVersions(any(Etag.class), eq(item));
+        verify(etagCache, times(1)).stamp();
+        verify(etagCache, times(1)).put(eq("items/1"), eq("user=1"), any(Etag.class), eq(nextStart), anyLong());
+        verifyNoMoreInteractions(userIdCache, itemRepository, itemMapper, bookingRepository, bookingMapper,
+                etagCache);
     }
 
     @Test
@@ -245,10 +283,10 @@ class ItemServiceImplTest {
         long userId = 1L;
         long id = 1L;
 
-        User user = new User();
         Item item = new Item();
+        item.setId(id);
+        item.setOwner(new User(userId, "John", "john@example.com"));
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(itemRepository.findById(id)).thenReturn(Optional.of(item));
 
         ItemDto itemDto = new ItemDto();
@@ -256,32 +294,21 @@ class ItemServiceImplTest {
 
         when(itemMapper.toItemDto(item)).thenReturn(itemDto);
 
-        when(bookingRepository.findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(any(Item.class),
-                any(LocalDateTime.class),
-                any(BookingStatus.class)))
-                .thenReturn(Optional.empty());
-        when(bookingRepository.findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(any(Item.class),
-                any(LocalDateTime.class),
-                any(BookingStatus.class)))
-                .thenReturn(Optional.empty());
+        when(bookingRepository.findLastAndNextByItemId(eq(id), any(LocalDateTime.class)))
+                .thenReturn(List.of());
 
         ItemDto resultItemDto = itemService.getById(userId, id);
 
         assertEquals(itemDto, resultItemDto);
         assertNull(resultItemDto.getLastBooking());
         assertNull(resultItemDto.getNextBooking());
-        verify(userRepository, times(1)).findById(userId);
+        verify(userIdCache, times(1)).checkExists(userId);
         verify(itemRepository, times(1)).findById(id);
         verify(itemMapper, times(1)).toItemDto(item);
         verify(bookingRepository, times(1))
-                .findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(any(Item.class),
-                        any(LocalDateTime.class),
-                        any(BookingStatus.class));
-        verify(bookingRepository, times(1))
-                .findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(any(Item.class),
-                        any(LocalDateTime.class),
-                        any(BookingStatus.class));
-        verifyNoMoreInteractions(userRepository, itemRepository, itemMapper, bookingRepository);
+                .findLastAndNextByItemId(eq(id), any(LocalDateTime.class));
+        verify(itemMapper, times(1)).addVersions(any(Etag.class), eq(item));
+        verifyNoMoreInteractions(userIdCache, itemRepository, itemMapper, bookingRepository);
     }
 
     @Test
@@ -289,11 +316,11 @@ class ItemServiceImplTest {
         long userId = 999L;
         long id = 1L;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(userId);
 
         assertThrows(NotFoundException.class, () -> itemService.getById(userId, id));
-        verify(userRepository, times(1)).findById(userId);
-        verifyNoMoreInteractions(userRepository);
+        verify(userIdCache, times(1)).checkExists(userId);
+        verifyNoMoreInteractions(userIdCache);
     }
 
     @Test
@@ -301,15 +328,12 @@ class ItemServiceImplTest {
         long userId = 1L;
         long id = 999L;
 
-        User user = new User();
-
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(itemRepository.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemService.getById(userId, id));
-        verify(userRepository, times(1)).findById(userId);
+        verify(userIdCache, times(1)).checkExists(userId);
         verify(itemRepository, times(1)).findById(id);
-        verifyNoMoreInteractions(userRepository, itemRepository);
+        verifyNoMoreInteractions(userIdCache, itemRepository);
     }
 
     @Test
@@ -327,7 +351,6 @@ class ItemServiceImplTest {
         Item existingItem = new Item();
         existingItem.setOwner(owner);
 
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
         when(itemRepository.findById(id)).thenReturn(Optional.of(existingItem));
         when(itemRepository.save(any(Item.class))).thenReturn(existingItem);
         when(itemMapper.toItemDto(any(Item.class))).thenReturn(new ItemDto());
@@ -343,11 +366,11 @@ class ItemServiceImplTest {
         assertEquals(itemDto.getName(), savedItem.getName());
         assertEquals(itemDto.getDescription(), savedItem.getDescription());
         assertEquals(itemDto.getAvailable(), savedItem.getAvailable());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userIdCache, times(1)).checkExists(anyLong());
         verify(itemRepository, times(1)).findById(id);
         verify(itemRepository, times(1)).save(any(Item.class));
         verify(itemMapper, times(1)).toItemDto(any(Item.class));
-        verifyNoMoreInteractions(userRepository, itemRepository, itemMapper);
+        verifyNoMoreInteractions(userIdCache, itemRepository, itemMapper);
     }
 
     @Test
@@ -357,11 +380,11 @@ class ItemServiceImplTest {
 
         ItemDto itemDto = new ItemDto();
 
-        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(ownerId);
 
         assertThrows(NotFoundException.class, () -> itemService.update(ownerId, id, itemDto));
-        verify(userRepository, times(1)).findById(anyLong());
-        verifyNoMoreInteractions(userRepository);
+        verify(userIdCache, times(1)).checkExists(anyLong());
+        verifyNoMoreInteractions(userIdCache);
     }
 
     @Test
@@ -370,15 +393,13 @@ class ItemServiceImplTest {
         long id = 999L;
 
         ItemDto itemDto = new ItemDto();
-        User user = new User();
 
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(user));
         when(itemRepository.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemService.update(ownerId, id, itemDto));
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userIdCache, times(1)).checkExists(anyLong());
         verify(itemRepository, times(1)).findById(anyLong());
-        verifyNoMoreInteractions(userRepository, itemRepository);
+        verifyNoMoreInteractions(userIdCache, itemRepository);
     }
 
     @Test
@@ -387,19 +408,16 @@ class ItemServiceImplTest {
         long id = 1L;
 
         ItemDto itemDto = new ItemDto();
-        User owner = new User(1L, "John", "john@example.com");
 
         Item existingItem = new Item();
         existingItem.setOwner(new User(2L, "Nick", "nick@example.com"));
 
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
         when(itemRepository.findById(id)).thenReturn(Optional.of(existingItem));
 
-
         assertThrows(NotFoundException.class, () -> itemService.update(ownerId, id, itemDto));
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userIdCache, times(1)).checkExists(anyLong());
         verify(itemRepository, times(1)).findById(anyLong());
-        verifyNoMoreInteractions(userRepository, itemRepository);
+        verifyNoMoreInteractions(userIdCache, itemRepository);
     }
 
     @Test
@@ -407,31 +425,28 @@ class ItemServiceImplTest {
         long ownerId = 1L;
 
         Item item = new Item();
+        item.setId(1L);
         ItemDto itemDto = new ItemDto();
 
-        Booking lastBooking = new Booking();
-        lastBooking.setId(1L);
+        ItemBookingShortView lastBooking = mock(ItemBookingShortView.class);
+        when(lastBooking.getItemId()).thenReturn(1L);
+        when(lastBooking.getKind()).thenReturn(ItemBookingShortView.LAST);
 
-        Booking nextBooking = new Booking();
-        nextBooking.setId(2L);
+        ItemBookingShortView nextBooking = mock(ItemBookingShortView.class);
+        when(nextBooking.getItemId()).thenReturn(1L);
+        when(nextBooking.getKind()).thenReturn(ItemBookingShortView.NEXT);
 
         BookingShortDto lastBookingShortDto = new BookingShortDto();
         BookingShortDto nextBookingShortDto = new BookingShortDto();
 
-        when(userRepository.findById(ownerId))
-                .thenReturn(Optional.of(new User()));
+        when(userRepository.getReferenceById(ownerId))
+                .thenReturn(new User());
         when(itemRepository.findAllByOwner(any(User.class), any(PageRequest.class)))
                 .thenReturn(List.of(item));
         when(itemMapper.toItemDto(item))
                 .thenReturn(itemDto);
-        when(bookingRepository.findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(any(Item.class),
-                any(LocalDateTime.class),
-                any(BookingStatus.class)))
-                .thenReturn(Optional.of(lastBooking));
-        when(bookingRepository.findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(any(Item.class),
-                any(LocalDateTime.class),
-                any(BookingStatus.class)))
-                .thenReturn(Optional.of(nextBooking));
+        when(bookingRepository.findLastAndNextByItemIds(eq(List.of(1L)), any(LocalDateTime.class)))
+                .thenReturn(List.of(lastBooking, nextBooking));
         when(bookingMapper.toBookingShortDto(lastBooking))
                 .thenReturn(lastBookingShortDto);
         when(bookingMapper.toBookingShortDto(nextBooking))
@@ -444,22 +459,18 @@ class ItemServiceImplTest {
         assertEquals(itemDto, resultItemDtos.get(0));
         assertSame(lastBookingShortDto, itemDto.getLastBooking());
         assertSame(nextBookingShortDto, itemDto.getNextBooking());
+        verify(userIdCache, times(1))
+                .checkExists(anyLong());
         verify(userRepository, times(1))
-                .findById(anyLong());
+                .getReferenceById(anyLong());
         verify(itemRepository, times(1))
                 .findAllByOwner(any(User.class), any(PageRequest.class));
         verify(itemMapper, times(1))
                 .toItemDto(any(Item.class));
         verify(bookingRepository, times(1))
-                .findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(any(Item.class),
-                        any(LocalDateTime.class),
-                        any(BookingStatus.class));
-        verify(bookingRepository, times(1))
-                .findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(any(Item.class),
-                        any(LocalDateTime.class),
-                        any(BookingStatus.class));
+                .findLastAndNextByItemIds(anyCollection(), any(LocalDateTime.class));
         verify(bookingMapper, times(2))
-                .toBookingShortDto(any(Booking.class));
+                .toBookingShortDto(any(ItemBookingShortView.class));
         verifyNoMoreInteractions(userRepository,
                 itemRepository,
                 itemMapper,
@@ -472,28 +483,17 @@ class ItemServiceImplTest {
         long ownerId = 1L;
 
         Item item = new Item();
+        item.setId(1L);
         ItemDto itemDto = new ItemDto();
 
-        Booking lastBooking = new Booking();
-        lastBooking.setId(1L);
-
-        Booking nextBooking = new Booking();
-        nextBooking.setId(2L);
-
-        when(userRepository.findById(ownerId))
-                .thenReturn(Optional.of(new User()));
+        when(userRepository.getReferenceById(ownerId))
+                .thenReturn(new User());
         when(itemRepository.findAllByOwner(any(User.class), any(PageRequest.class)))
                 .thenReturn(List.of(item));
         when(itemMapper.toItemDto(item))
                 .thenReturn(itemDto);
-        when(bookingRepository.findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(any(Item.class),
-                any(LocalDateTime.class),
-                any(BookingStatus.class)))
-                .thenReturn(Optional.empty());
-        when(bookingRepository.findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(any(Item.class),
-                any(LocalDateTime.class),
-                any(BookingStatus.class)))
-                .thenReturn(Optional.empty());
+        when(bookingRepository.findLastAndNextByItemIds(anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
 
         List<ItemDto> resultItemDtos = itemService.getAllByOwnerId(ownerId, 0, 10);
 
@@ -502,37 +502,269 @@ class ItemServiceImplTest {
         assertEquals(itemDto, resultItemDtos.get(0));
         assertNull(itemDto.getLastBooking());
         assertNull(itemDto.getNextBooking());
+        verify(userIdCache, times(1))
+                .checkExists(anyLong());
         verify(userRepository, times(1))
-                .findById(anyLong());
+                .getReferenceById(anyLong());
         verify(itemRepository, times(1))
                 .findAllByOwner(any(User.class), any(PageRequest.class));
         verify(itemMapper, times(1))
                 .toItemDto(any(Item.class));
         verify(bookingRepository, times(1))
-                .findFirstByItemAndStartBeforeAndStatusNotOrderByEndDesc(any(Item.class),
-                        any(LocalDateTime.class),
-                        any(BookingStatus.class));
-        verify(bookingRepository, times(1))
-                .findFirstByItemAndStartAfterAndStatusNotOrderByStartAsc(any(Item.class),
-                        any(LocalDateTime.class),
-                        any(BookingStatus.class));
+                .findLastAndNextByItemIds(anyCollection(), any(LocalDateTime.class));
         verifyNoMoreInteractions(userRepository,
                 itemRepository,
                 itemMapper,
                 bookingRepository);
     }
 
+    @Test
+    void getAllByOwnerId_whenOwnerFoundWithoutItems_thenEmptyCollectionReturned() {
+        long ownerId = 1L;
+
+        when(userRepository.getReferenceById(ownerId))
+                .thenReturn(new User());
+        when(itemRepository.findAllByOwner(any(User.class), any(PageRequest.class)))
+                .thenReturn(List.of());
+
+        List<ItemDto> resultItemDtos = itemService.getAllByOwnerId(ownerId, 0, 10);
+
+        assertTrue(resultItemDtos.isEmpty());
+        verify(userIdCache, times(1))
+                .checkExists(anyLong());
+        verify(userRepository, times(1))
+                .getReferenceById(anyLong());
+        verify(itemRepository, times(1))
+                .findAllByOwner(any(User.class), any(PageRequest.class));
+        verifyNoMoreInteractions(userRepository, itemRepository, bookingRepository);
+    }
+
     @Test
     void getAllByOwnerId_whenUserNotFound_thenNotFoundExceptionThrown() {
         long ownerId = 1L;
 
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(ownerId);
+
+        assertThrows(NotFoundException.class, () -> itemService.getAllByOwnerId(ownerId, 0, 10));
+        verify(userIdCache, times(1))
+                .checkExists(anyLong());
+        verifyNoMoreInteractions(userIdCache);
+    }
+
+    @Test
+    void createAll_whenRequestOfRowNotFound_thenRowRejectedAndOthersSaved() {
+        long ownerId = 1L;
+        User owner = new User(ownerId, "John", "john@example.com");
+
+        ItemDto validItemDto = ItemDto.builder().name("Hammer").description("Handy tool").available(true).build();
+        ItemDto orphanItemDto = ItemDto.builder().name("Saw").description("Sharp").available(true).requestId(5L).build();
+        Item item = new Item();
+
+        when(userRepository.findById(ownerId))
+                .thenReturn(Optional.of(owner));
+        when(requestRepository.findAllById(Set.of(5L)))
+                .thenReturn(List.of());
+        when(itemMapper.toItem(validItemDto))
+                .thenReturn(item);
+        when(itemRepository.saveAll(List.of(item)))
+                .thenAnswer(invocation -> {
+                    item.setId(10L);
+                    return List.of(item);
+                });
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionOperations).executeWithoutResult(any());
+        Session session = mock(Session.class);
+        when(entityManager.unwrap(Session.class))
+                .thenReturn(session);
+
+        ItemBatchResultDto result = itemService.createAll(ownerId, List.of(validItemDto, orphanItemDto).iterator());
+
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals(10L, result.getRows().get(0).getId());
+        assertNull(result.getRows().get(0).getError());
+        assertNull(result.getRows().get(1).getId());
+        assertEquals("Request with id 5 not found", result.getRows().get(1).getError());
+        assertEquals(owner, item.getOwner());
+        verify(userRepository, times(1)).findById(ownerId);
+        verify(requestRepository, times(1)).findAllById(Set.of(5L));
+        verify(itemRepository, times(1)).saveAll(List.of(item));
+        verify(transactionOperations, times(1)).executeWithoutResult(any());
+        verify(session, times(1)).setCacheMode(CacheMode.GET);
+        verify(entityManager, times(1)).unwrap(Session.class);
+        verify(entityManager, times(1)).flush();
+        verify(entityManager, times(1)).clear();
+        verifyNoMoreInteractions(userRepository, requestRepository, itemRepository, entityManager);
+    }
+
+    @Test
+    void createAll_whenChunkFailsOnDatabase_thenItsRowsReportedNotSaved() {
+        long ownerId = 1L;
+        User owner = new User(ownerId, "John", "john@example.com");
+
+        ItemDto validItemDto = ItemDto.builder().name("Hammer").description("Handy tool").available(true).build();
+        ItemDto orphanItemDto = ItemDto.builder().name("Saw").description("Sharp").available(true).requestId(5L).build();
+        Item item = new Item();
+
+        when(userRepository.findById(ownerId))
+                .thenReturn(Optional.of(owner));
+        when(requestRepository.findAllById(Set.of(5L)))
+                .thenReturn(List.of());
+        when(itemMapper.toItem(validItemDto))
+                .thenReturn(item);
+        when(itemRepository.saveAll(List.of(item)))
+                .thenAnswer(invocation -> {
+                    item.setId(10L);
+                    return List.of(item);
+                });
+        doThrow(new DataIntegrityViolationException("items_owner_id_fkey"))
+                .when(entityManager).flush();
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionOperations).executeWithoutResult(any());
+        when(entityManager.unwrap(Session.class))
+                .thenReturn(mock(Session.class));
+
+        ItemBatchResultDto result = itemService.createAll(ownerId, List.of(validItemDto, orphanItemDto).iterator());
+
+        assertEquals(0, result.getCreated());
+        assertEquals(2, result.getRejected());
+        assertNull(result.getRows().get(0).getId());
+        assertEquals("Not saved: database error", result.getRows().get(0).getError());
+        assertNull(result.getRows().get(1).getId());
+        assertEquals("Request with id 5 not found", result.getRows().get(1).getError());
+    }
+
+    @Test
+    void createAll_whenLaterChunkFailsToCommit_thenEarlierChunkReportedSaved() {
+        long ownerId = 1L;
+        User owner = new User(ownerId, "John", "john@example.com");
+        List<ItemDto> itemDtos = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            itemDtos.add(ItemDto.builder().name("Hammer " + i).description("Handy tool").available(true).build());
+        }
+        AtomicLong ids = new AtomicLong();
+
+        when(userRepository.findById(ownerId))
+                .thenReturn(Optional.of(owner));
+        when(itemMapper.toItem(any()))
+                .thenAnswer(invocation -> new Item());
+        when(itemRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> {
+                    List<Item> items = invocation.getArgument(0);
+                    items.forEach(item -> item.setId(ids.incrementAndGet()));
+                    return items;
+                });
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            throw new TransactionSystemException("Could not commit JPA transaction");
+        }).when(transactionOperations).executeWithoutResult(any());
+        when(entityManager.unwrap(Session.class))
+                .thenReturn(mock(Session.class));
+
+        ItemBatchResultDto result = itemService.createAll(ownerId, itemDtos.iterator());
+
+        assertEquals(500, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals(501, result.getRows().size());
+        assertEquals(500L, result.getRows().get(499).getId());
+        assertEquals(500, result.getRows().get(500).getIndex());
+        assertNull(result.getRows().get(500).getId());
+        assertEquals("Not saved: database error", result.getRows().get(500).getError());
+    }
+
+    @Test
+    void createAll_whenOwnerNotFound_thenNotFoundExceptionThrown() {
+        long ownerId = 999L;
+
         when(userRepository.findById(ownerId))
                 .thenReturn(Optional.empty());
 
-        assertThrows(NotFoundException.class, () -> itemService.getAllByOwnerId(ownerId, 0, 10));
-        verify(userRepository, times(1))
-                .findById(anyLong());
-        verifyNoMoreInteractions(userRepository);
+        assertThrows(NotFoundException.class,
+                () -> itemService.createAll(ownerId, List.<ItemDto>of().iterator()));
+        verifyNoInteractions(itemRepository, requestRepository);
+    }
+
+    @Test
+    void getAllFreeByOwnerId_whenOneItemBooked_thenOnlyFreeItemReturned() {
+        long ownerId = 1L;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = start.plusDays(2);
+
+        Item bookedItem = new Item();
+        bookedItem.setId(1L);
+        Item freeItem = new Item();
+        freeItem.setId(2L);
+
+        ItemDto itemDto = new ItemDto();
+
+        when(itemRepository.findAllAvailableByOwnerIdAfter(ownerId, 0L, PageRequest.of(0, 10)))
+                .thenReturn(List.of(bookedItem, freeItem));
+        when(availabilityIndex.findBooked(List.of(1L, 2L), start, end))
+                .thenReturn(Set.of(1L));
+        when(itemMapper.toItemDto(freeItem))
+                .thenReturn(itemDto);
+
+        List<ItemDto> resultItems = itemService.getAllFreeByOwnerId(ownerId, start, end, 0, 10);
+
+        assertEquals(List.of(itemDto), resultItems);
+        verify(userIdCache, times(1)).checkExists(ownerId);
+        verify(itemRepository, times(1)).findAllAvailableByOwnerIdAfter(ownerId, 0L, PageRequest.of(0, 10));
+        verify(itemMapper, times(1)).toItemDto(freeItem);
+        verifyNoInteractions(bookingRepository);
+        verifyNoMoreInteractions(userIdCache, itemRepository, itemMapper);
+    }
+
+    @Test
+    void getAllFreeByOwnerId_whenPageTakenByBookedItems_thenNextPageRead() {
+        long ownerId = 1L;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = start.plusDays(2);
+
+        Item bookedItem = new Item();
+        bookedItem.setId(1L);
+        Item skippedItem = new Item();
+        skippedItem.setId(2L);
+        Item freeItem = new Item();
+        freeItem.setId(3L);
+
+        ItemDto itemDto = new ItemDto();
+
+        when(itemRepository.findAllAvailableByOwnerIdAfter(ownerId, 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(bookedItem, skippedItem));
+        when(itemRepository.findAllAvailableByOwnerIdAfter(ownerId, 2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(freeItem));
+        when(availabilityIndex.findBooked(List.of(1L, 2L), start, end))
+                .thenReturn(Set.of(1L));
+        when(availabilityIndex.findBooked(List.of(3L), start, end))
+                .thenReturn(Set.of());
+        when(itemMapper.toItemDto(freeItem))
+                .thenReturn(itemDto);
+
+        List<ItemDto> resultItems = itemService.getAllFreeByOwnerId(ownerId, start, end, 1, 1);
+
+        assertEquals(List.of(itemDto), resultItems);
+        verify(itemRepository, times(2)).findAllAvailableByOwnerIdAfter(eq(ownerId), anyLong(), any());
+        verify(itemMapper, times(1)).toItemDto(freeItem);
+        verifyNoMoreInteractions(itemRepository, itemMapper);
+    }
+
+    @Test
+    void getAllFreeByOwnerId_whenStartNotBeforeEnd_thenValidationExceptionThrown() {
+        long ownerId = 1L;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        assertThrows(ValidationException.class,
+                () -> itemService.getAllFreeByOwnerId(ownerId, start, start, 0, 10));
+        assertThrows(ValidationException.class,
+                () -> itemService.getAllFreeByOwnerId(ownerId, LocalDateTime.now().minusDays(1), start, 0, 10));
+        verifyNoInteractions(itemRepository, availabilityIndex);
     }
 
     @Test
@@ -545,9 +777,7 @@ class ItemServiceImplTest {
 
         ItemDto itemDto = new ItemDto();
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(new User()));
-        when(itemRepository.findBySearchTermIgnoreCase(anyString(),
+        when(itemRepository.searchAvailable(anyString(),
                 any(PageRequest.class)))
                 .thenReturn(List.of(item));
         when(itemMapper.toItemDto(item))
@@ -558,39 +788,34 @@ class ItemServiceImplTest {
         assertFalse(resultItems.isEmpty());
         assertEquals(1, resultItems.size());
         assertEquals(itemDto, resultItems.get(0));
-        verify(userRepository, times(1))
-                .findById(anyLong());
+        verify(userIdCache, times(1))
+                .checkExists(anyLong());
         verify(itemRepository, times(1))
-                .findBySearchTermIgnoreCase(anyString(),
+                .searchAvailable(anyString(),
                         any(PageRequest.class));
         verify(itemMapper, times(1))
                 .toItemDto(any(Item.class));
-        verifyNoMoreInteractions(userRepository, itemRepository, itemMapper);
+        verifyNoMoreInteractions(userIdCache, itemRepository, itemMapper);
     }
 
     @Test
-    void getAllBySubstring_whenItemNotAvailable_thenEmptyCollectionOfItemDtoReturned() {
+    void getAllBySubstring_whenNoAvailableItemFound_thenEmptyCollectionOfItemDtoReturned() {
         long userId = 1L;
         String substring = "hAm";
 
-        Item item = new Item();
-        item.setAvailable(false);
-
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(new User()));
-        when(itemRepository.findBySearchTermIgnoreCase(anyString(),
+        when(itemRepository.searchAvailable(anyString(),
                 any(PageRequest.class)))
-                .thenReturn(List.of(item));
+                .thenReturn(List.of());
 
         List<ItemDto> resultItems = itemService.getAllBySubstring(userId, substring, 0, 10);
 
         assertTrue(resultItems.isEmpty());
-        verify(userRepository, times(1))
-                .findById(anyLong());
+        verify(userIdCache, times(1))
+                .checkExists(anyLong());
         verify(itemRepository, times(1))
-                .findBySearchTermIgnoreCase(anyString(),
+                .searchAvailable(anyString(),
                         any(PageRequest.class));
-        verifyNoMoreInteractions(userRepository, itemRepository);
+        verifyNoMoreInteractions(userIdCache, itemRepository);
     }
 
     @Test
@@ -601,15 +826,12 @@ class ItemServiceImplTest {
         Item item = new Item();
         item.setAvailable(false);
 
-        when(userRepository.findById(userId))
-                .thenReturn(Optional.of(new User()));
-
         List<ItemDto> resultItems = itemService.getAllBySubstring(userId, substring, 0, 10);
 
         assertTrue(resultItems.isEmpty());
-        verify(userRepository, times(1))
-                .findById(anyLong());
-        verifyNoMoreInteractions(userRepository);
+        verify(userIdCache, times(1))
+                .checkExists(anyLong());
+        verifyNoMoreInteractions(userIdCache);
     }
 
     @Test
@@ -625,12 +847,12 @@ class ItemServiceImplTest {
                 .thenReturn(Optional.of(user));
         when(itemRepository.findById(itemId))
                 .thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByBookerAndItemAndStatusAndEndBefore(
-                any(User.class),
-                any(Item.class),
-                any(BookingStatus.class),
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(
+                eq(userId),
+                eq(itemId),
+                eq(BookingStatus.APPROVED),
                 any(LocalDateTime.class)))
-                .thenReturn(Optional.of(new Booking()));
+                .thenReturn(true);
         when(commentMapper.toComment(any(CreationCommentDto.class)))
                 .thenReturn(comment);
         when(commentRepository.save(comment))
@@ -652,9 +874,9 @@ class ItemServiceImplTest {
         verify(itemRepository, times(1))
                 .findById(anyLong());
         verify(bookingRepository, times(1))
-                .findFirstByBookerAndItemAndStatusAndEndBefore(
-                        any(User.class),
-                        any(Item.class),
+                .existsByBookerIdAndItemIdAndStatusAndEndBefore(
+                        anyLong(),
+                        anyLong(),
                         any(BookingStatus.class),
                         any(LocalDateTime.class));
         verify(commentMapper, times(1)).toComment(any(CreationCommentDto.class));
@@ -680,12 +902,12 @@ class ItemServiceImplTest {
                 .thenReturn(Optional.of(user));
         when(itemRepository.findById(itemId))
                 .thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByBookerAndItemAndStatusAndEndBefore(
-                any(User.class),
-                any(Item.class),
-                any(BookingStatus.class),
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(
+                eq(userId),
+                eq(itemId),
+                eq(BookingStatus.APPROVED),
                 any(LocalDateTime.class)))
-                .thenReturn(Optional.empty());
+                .thenReturn(false);
 
         assertThrows(ValidationException.class,
                 () -> itemService.createComment(userId, itemId, new CreationCommentDto()));
@@ -695,9 +917,9 @@ class ItemServiceImplTest {
         verify(itemRepository, times(1))
                 .findById(anyLong());
         verify(bookingRepository, times(1))
-                .findFirstByBookerAndItemAndStatusAndEndBefore(
-                        any(User.class),
-                        any(Item.class),
+                .existsByBookerIdAndItemIdAndStatusAndEndBefore(
+                        anyLong(),
+                        anyLong(),
                         any(BookingStatus.class),
                         any(LocalDateTime.class));
         verifyNoMoreInteractions(userRepository, itemRepository, bookingRepository);
@@ -740,4 +962,48 @@ class ItemServiceImplTest {
                 .findById(anyLong());
         verifyNoMoreInteractions(userRepository);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllFieldsByOwnerId_whenOnlyColumnsSelected_thenNoAssociationQueried() {
+        long ownerId = 1L;
+        Map<String, Object> row = new HashMap<>(Map.of("id", 2L, "name", "Hammer"));
+
+        when(fieldRepository.findAll(eq(Item.class), any(), any(), any(PageRequest.class)))
+                .thenReturn(List.of(row));
+
+        List<Map<String, Object>> result = itemService.getAllFieldsByOwnerId(ownerId, "name", 0, 10);
+
+        assertEquals(List.of(Map.of("id", 2L, "name", "Hammer")), result);
+        verify(userIdCache, times(1)).checkExists(ownerId);
+        verifyNoInteractions(bookingRepository, commentRepository);
+    }
+
+    @Test
+    void getAllFieldsByOwnerId_whenCommentsSelected_thenCommentsOfPageQueriedOnce() {
+        long ownerId = 1L;
+        CommentView commentView = mock(CommentView.class);
+        CommentDto commentDto = new CommentDto();
+        Map<String, Object> commented = new HashMap<>(Map.of("id", 2L));
+        Map<String, Object> uncommented = new HashMap<>(Map.of("id", 3L));
+
+        when(fieldRepository.findAll(eq(Item.class), any(), any(), any(PageRequest.class)))
+                .thenReturn(List.of(commented, uncommented));
+        when(commentView.getItemId()).thenReturn(2L);
+        when(commentRepository.findAllByItemIdIn(List.of(2L, 3L))).thenReturn(List.of(commentView));
+        when(commentMapper.toCommentDto(commentView)).thenReturn(commentDto);
+
+        itemService.getAllFieldsByOwnerId(ownerId, "comments", 0, 10);
+
+        assertEquals(List.of(commentDto), commented.get("comments"));
+        assertEquals(List.of(), uncommented.get("comments"));
+        verify(commentRepository, times(1)).findAllByItemIdIn(List.of(2L, 3L));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getAllFieldsByOwnerId_whenFieldUnknown_thenValidationExceptionThrown() {
+        assertThrows(ValidationException.class, () -> itemService.getAllFieldsByOwnerId(1L, "price", 0, 10));
+
+        verifyNoInteractions(fieldRepository);
+    }
+}
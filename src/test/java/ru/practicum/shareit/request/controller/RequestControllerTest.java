@@ -12,10 +12,13 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.request.dto.CreationRequestDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.util.pagination.Cursor;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -23,6 +26,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -198,6 +202,33 @@ class RequestControllerTest {
                 .andExpect(jsonPath("$[0].items", hasSize(0)));
     }
 
+    @Test
+    void getAll_whenAfterGiven_thenRequestsAfterCursorWithNextCursorHeaderReturned() throws Exception {
+        long userId = 1L;
+        Cursor cursor = Cursor.of(LocalDateTime.of(2023, 7, 6, 10, 0), 2L);
+
+        RequestDto expectedResult = RequestDto.builder()
+                .id(1L)
+                .description("Hammer or something like that")
+                .created("2023-07-05T15:00")
+                .requestorId(2L)
+                .items(Collections.emptyList())
+                .build();
+
+        when(requestService.getAll(userId, cursor, 1)).thenReturn(List.of(expectedResult));
+
+        mvc.perform(get("/requests/all?size=1&after=" + cursor.encode())
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .header("X-Sharer-User-Id", userId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(expectedResult.getId()), Long.class))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        Cursor.of(LocalDateTime.parse(expectedResult.getCreated()), 1L).encode()));
+
+        verify(requestService, never()).getAll(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     void getAll_whenFromOrSizeNotValid_thenResponseStatusServerError() throws Exception {
         long userId = 1L;
@@ -228,4 +259,26 @@ class RequestControllerTest {
 
         verify(requestService, never()).getAllByUser(anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllFields_whenFieldsAndAfterGiven_thenSelectedFieldsAfterCursorReturned() throws Exception {
+        long userId = 1L;
+        Cursor cursor = Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0), 3L);
+
+        when(requestService.getAllFields(eq(userId), eq("description"), any(Cursor.class), eq(1)))
+                .thenReturn(List.of(Map.of("id", 2L, "created", "2023-07-04T15:00", "description", "Need a hammer")));
+
+        mvc.perform(get("/requests/all")
+                        .param("fields", "description")
+                        .param("after", cursor.encode())
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].description", is("Need a hammer")))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        Cursor.of(LocalDateTime.of(2023, 7, 4, 15, 0), 2L).encode()));
+
+        verify(requestService, never()).getAll(anyLong(), any(Cursor.class), anyInt());
+        verify(requestService, never()).getAllEtag(anyLong(), any(Cursor.class), anyInt());
+    }
+}
@@ -4,12 +4,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -54,4 +56,49 @@ class RequestRepositoryTest {
         Request actualRequest = maybeRequests.get(0);
         assertSame(request, actualRequest);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllByRequestorIdNot_whenPersist_thenRequestsOfOtherUsersReturned() {
+        User anotherRequestor = userRepository.save(new User(null, "Kyle", "kyle@example.com"));
+
+        Request anotherRequest = new Request();
+        anotherRequest.setDescription("Need a ladder");
+        anotherRequest.setCreated(LocalDateTime.now());
+        anotherRequest.setRequestor(anotherRequestor);
+        requestRepository.save(anotherRequest);
+
+        List<Request> maybeRequests = requestRepository.findAllByRequestorIdNot(
+                requestor.getId(),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "created"))
+        );
+
+        assertEquals(List.of(anotherRequest), maybeRequests);
+    }
+
+    @Test
+    void findAllByRequestorIdNotAfter_whenCreatedTies_thenRequestsAfterCursorOrderedByIdDesc() {
+        User anotherRequestor = userRepository.save(new User(null, "Kyle", "kyle@example.com"));
+        LocalDateTime created = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        Request first = new Request();
+        first.setDescription("Need a ladder");
+        first.setCreated(created);
+        first.setRequestor(anotherRequestor);
+        requestRepository.save(first);
+
+        Request second = new Request();
+        second.setDescription("Need a drill");
+        second.setCreated(created);
+        second.setRequestor(anotherRequestor);
+        requestRepository.save(second);
+
+        List<Request> maybeRequests = requestRepository.findAllByRequestorIdNotAfter(
+                requestor.getId(),
+                created,
+                second.getId(),
+                PageRequest.of(0, 10)
+        );
+
+        assertEquals(List.of(first), maybeRequests);
+    }
+}
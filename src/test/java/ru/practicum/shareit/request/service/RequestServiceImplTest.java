@@ -1,11 +1,15 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.CreationRequestDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.model.Request;
@@ -13,6 +17,7 @@ import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -103,4 +108,70 @@ class RequestServiceImplTest {
         assertThat(resultRequestDtos.get(0).getDescription(), equalTo(request.getDescription()));
         assertThat(resultRequestDtos.get(0).getRequestorId(), equalTo(requestor.getId()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAll_whenPageGrows_thenNumberOfStatementsStaysTheSame() {
+        User anotherUser = new User(null, "Kyle", "kyle@example.com");
+        em.persist(anotherUser);
+        for (int i = 0; i < 6; i++) {
+            addRequestWithAnsweredItems(requestor, anotherUser);
+        }
+
+        // the first call also remembers the user in UserIdCache
+        requestService.getAll(anotherUser.getId(), 0, 1);
+
+        long smallPageStatements = countStatements(() -> requestService.getAll(anotherUser.getId(), 0, 2));
+        long largePageStatements = countStatements(() -> requestService.getAll(anotherUser.getId(), 0, 6));
+
+        assertThat(largePageStatements, equalTo(smallPageStatements));
+    }
+
+    @Test
+    void getAllByUser_whenMoreRequests_thenNumberOfStatementsStaysTheSame() {
+        User anotherUser = new User(null, "Kyle", "kyle@example.com");
+        em.persist(anotherUser);
+        addRequestWithAnsweredItems(anotherUser, requestor);
+        for (int i = 0; i < 6; i++) {
+            addRequestWithAnsweredItems(requestor, anotherUser);
+        }
+
+        long fewRequestsStatements = countStatements(() -> requestService.getAllByUser(anotherUser.getId()));
+        long manyRequestsStatements = countStatements(() -> requestService.getAllByUser(requestor.getId()));
+
+        assertThat(manyRequestsStatements, equalTo(fewRequestsStatements));
+    }
+
+    private void addRequestWithAnsweredItems(User requestor, User itemOwner) {
+        Request request = new Request();
+        request.setRequestor(requestor);
+        request.setDescription("Something like hummer");
+        em.persist(request);
+
+        for (int i = 0; i < 2; i++) {
+            Item item = new Item();
+            item.setOwner(itemOwner);
+            item.setName("Hammer");
+            item.setDescription("Handy tool");
+            item.setAvailable(true);
+            item.setRequest(request);
+            em.persist(item);
+
+            Comment comment = new Comment();
+            comment.setItem(item);
+            comment.setUser(requestor);
+            comment.setText("Good hammer");
+            comment.setCreated(LocalDateTime.now());
+            em.persist(comment);
+        }
+    }
+
+    private long countStatements(Runnable action) {
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
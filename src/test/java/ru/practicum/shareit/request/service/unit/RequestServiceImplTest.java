@@ -5,8 +5,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.request.dto.CreationRequestDto;
@@ -17,8 +15,13 @@ import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.request.service.RequestServiceImpl;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdCache;
+import ru.practicum.shareit.util.etag.EtagCache;
 import ru.practicum.shareit.util.exception.NotFoundException;
+import ru.practicum.shareit.util.exception.ValidationException;
+import ru.practicum.shareit.util.pagination.Cursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,7 +35,11 @@ class RequestServiceImplTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserIdCache userIdCache;
+    @Mock
     private RequestMapper requestMapper;
+    @Mock
+    private EtagCache etagCache;
     @InjectMocks
     private RequestServiceImpl requestService;
 
@@ -80,18 +87,16 @@ class RequestServiceImplTest {
     void getById_whenUserAndRequestFound_thenRequestDtoReturned() {
         long userId = 1L;
         long requestId = 1L;
-        User user = new User();
         Request request = new Request();
         RequestDto expectedRequestDto = new RequestDto();
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(requestRepository.findById(userId)).thenReturn(Optional.of(request));
         when(requestMapper.toRequestDto(request)).thenReturn(expectedRequestDto);
 
         RequestDto resultRequest = requestService.getById(userId, requestId);
 
         assertEquals(resultRequest, expectedRequestDto);
-        verify(userRepository).findById(userId);
+        verify(userIdCache).checkExists(userId, "User not found");
         verify(requestRepository).findById(requestId);
         verify(requestMapper).toRequestDto(request);
     }
@@ -101,26 +106,24 @@ class RequestServiceImplTest {
         long userId = 999L;
         long requestId = 1L;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(userId, "User not found");
 
         assertThrows(NotFoundException.class, () -> requestService.getById(userId, requestId));
-        verify(userRepository).findById(userId);
-        verifyNoMoreInteractions(userRepository);
+        verify(userIdCache).checkExists(userId, "User not found");
+        verifyNoMoreInteractions(userIdCache);
     }
 
     @Test
     void getById_whenRequestNotFound_thenNotFoundExceptionThrown() {
         long userId = 1L;
         long requestId = 999L;
-        User user = new User();
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(requestRepository.findById(requestId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> requestService.getById(userId, requestId));
-        verify(userRepository).findById(userId);
+        verify(userIdCache).checkExists(userId, "User not found");
         verify(requestRepository).findById(requestId);
-        verifyNoMoreInteractions(userRepository, requestRepository);
+        verifyNoMoreInteractions(userIdCache, requestRepository);
     }
 
     @Test
@@ -130,7 +133,7 @@ class RequestServiceImplTest {
         Request request = new Request();
         RequestDto requestDto = new RequestDto();
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(requestor));
+        when(userRepository.getReferenceById(userId)).thenReturn(requestor);
         when(requestRepository.findAllByRequestor(requestor, Sort.by("created").descending()))
                 .thenReturn(List.of(request));
         when(requestMapper.toRequestDto(request)).thenReturn(requestDto);
@@ -146,26 +149,23 @@ class RequestServiceImplTest {
     void getAllByUser_whenUserNotFound_thenNotFoundExceptionThrown() {
         long userId = 1L;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(userId, "User not found");
 
         assertThrows(NotFoundException.class, () -> requestService.getAllByUser(userId));
-        verify(userRepository).findById(userId);
-        verifyNoMoreInteractions(userRepository);
+        verify(userIdCache).checkExists(userId, "User not found");
+        verifyNoMoreInteractions(userIdCache);
     }
 
     @Test
     void getAll_whenUserNotOwnerOfRequest_thenCollectionOfRequestDtoOfOtherUsersReturned() {
         long userId = 1L;
-        User user = new User(userId, "John", "john@example.com");
 
         Request request = new Request();
         request.setRequestor(new User(2L, "Paul", "paul@example.com"));
 
-        Page<Request> page = new PageImpl<>(List.of(request));
         RequestDto requestDto = new RequestDto();
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(requestRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        when(requestRepository.findAllByRequestorIdNot(eq(userId), any(PageRequest.class))).thenReturn(List.of(request));
         when(requestMapper.toRequestDto(request)).thenReturn(requestDto);
 
         List<RequestDto> resultRequests = requestService.getAll(userId, 0, 10);
@@ -176,31 +176,52 @@ class RequestServiceImplTest {
     }
 
     @Test
-    void getAll_whenUserIsOwnerOfRequest_thenEmptyCollectionReturned() {
+    void getAll_whenNoRequestsOfOtherUsers_thenEmptyCollectionReturned() {
         long userId = 1L;
-        User user = new User(userId, "John", "john@example.com");
 
-        Request request = new Request();
-        request.setRequestor(user);
-
-        Page<Request> page = new PageImpl<>(List.of(request));
-
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(requestRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        when(requestRepository.findAllByRequestorIdNot(eq(userId), any(PageRequest.class))).thenReturn(List.of());
 
         List<RequestDto> resultRequests = requestService.getAll(userId, 0, 10);
 
         assertTrue(resultRequests.isEmpty());
+        verifyNoInteractions(requestMapper);
     }
 
     @Test
     void getAll_whenUserNotFound_thenNotFoundExceptionThrown() {
         long userId = 999L;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        doThrow(NotFoundException.class).when(userIdCache).checkExists(userId, "User not found");
 
         assertThrows(NotFoundException.class, () -> requestService.getAll(userId, 0, 10));
-        verify(userRepository, times(1)).findById(userId);
-        verifyNoMoreInteractions(userRepository);
+        verify(userIdCache, times(1)).checkExists(userId, "User not found");
+        verifyNoMoreInteractions(userIdCache);
+    }
+
+    @Test
+    void getAll_whenCursorGiven_thenRequestsAfterCursorReturned() {
+        long userId = 1L;
+        LocalDateTime created = LocalDateTime.of(2023, 7, 5, 15, 0);
+
+        Request request = new Request();
+        RequestDto requestDto = new RequestDto();
+
+        when(requestRepository.findAllByRequestorIdNotAfter(userId, created, 5L, PageRequest.of(0, 10)))
+                .thenReturn(List.of(request));
+        when(requestMapper.toRequestDto(request)).thenReturn(requestDto);
+
+        List<RequestDto> resultRequests = requestService.getAll(userId, Cursor.of(created, 5L), 10);
+
+        assertEquals(List.of(requestDto), resultRequests);
+        verify(requestRepository, times(1)).findAllByRequestorIdNotAfter(userId, created, 5L, PageRequest.of(0, 10));
+        verifyNoMoreInteractions(requestRepository);
+    }
+
+    @Test
+    void getAll_whenCursorWithoutTimestamp_thenValidationExceptionThrown() {
+        long userId = 1L;
+
+        assertThrows(ValidationException.class, () -> requestService.getAll(userId, Cursor.of(5L), 10));
+        verifyNoInteractions(requestRepository, requestMapper);
     }
-}
\ No newline at end of file
+}
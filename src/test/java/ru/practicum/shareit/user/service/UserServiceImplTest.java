@@ -21,6 +21,7 @@ import static org.hamcrest.Matchers.*;
 class UserServiceImplTest {
     private final EntityManager em;
     private final UserService userService;
+    private final UserIdCache userIdCache;
 
     @Test
     void create_whenSuccess_thenCreateAndUserDtoReturned() {
@@ -105,4 +106,18 @@ class UserServiceImplTest {
         assertThat(resultUserDtos.get(0).getName(), equalTo(user.getName()));
         assertThat(resultUserDtos.get(0).getEmail(), equalTo(user.getEmail()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteById_whenUserIdCached_thenUserNoLongerExists() {
+        User user = new User(null, "John", "john@example.com");
+        em.persist(user);
+        em.flush();
+
+        assertThat(userIdCache.exists(user.getId()), is(true));
+
+        userService.deleteById(user.getId());
+        em.flush();
+
+        assertThat(userIdCache.exists(user.getId()), is(false));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.user.service.unit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdCache;
+import ru.practicum.shareit.util.exception.NotFoundException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserIdCacheTest {
+    @Mock
+    private UserRepository userRepository;
+    @InjectMocks
+    private UserIdCache userIdCache;
+
+    @Test
+    void checkExists_whenCalledTwice_thenUserLoadedOnce() {
+        long userId = 1L;
+
+        when(userRepository.existsById(userId)).thenReturn(true);
+
+        userIdCache.checkExists(userId);
+        userIdCache.checkExists(userId);
+
+        verify(userRepository, times(1)).existsById(userId);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void checkExists_whenUserNotFound_thenNotFoundExceptionThrownEveryTime() {
+        long userId = 999L;
+
+        when(userRepository.existsById(userId)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> userIdCache.checkExists(userId));
+        assertThrows(NotFoundException.class, () -> userIdCache.checkExists(userId));
+        verify(userRepository, times(2)).existsById(userId);
+    }
+
+    @Test
+    void checkExists_whenMessageGiven_thenNotFoundExceptionWithIt() {
+        long userId = 999L;
+
+        when(userRepository.existsById(userId)).thenReturn(false);
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> userIdCache.checkExists(userId, "User not found"));
+        assertEquals("User not found", exception.getMessage());
+    }
+
+    @Test
+    void exists_whenMoreUsersThanCacheHolds_thenNewUsersStillCached() {
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+
+        for (long userId = 1; userId <= 20_000; userId++) {
+            userIdCache.exists(userId);
+        }
+        userIdCache.exists(20_000L);
+
+        verify(userRepository, times(1)).existsById(20_000L);
+    }
+
+    @Test
+    void exists_whenEvicted_thenUserLoadedAgain() {
+        long userId = 1L;
+
+        when(userRepository.existsById(userId)).thenReturn(true, false);
+
+        assertTrue(userIdCache.exists(userId));
+        userIdCache.evict(userId);
+
+        assertFalse(userIdCache.exists(userId));
+        verify(userRepository, times(2)).existsById(userId);
+    }
+}
@@ -1,17 +1,28 @@
 package ru.practicum.shareit.user.service.unit;
 
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.service.ItemAvailabilityIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdCache;
 import ru.practicum.shareit.user.service.UserServiceImpl;
+import ru.practicum.shareit.util.etag.EtagCache;
 import ru.practicum.shareit.util.exception.NotFoundException;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -25,7 +36,17 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private ItemRepository itemRepository;
+    @Mock
     private UserMapper userMapper;
+    @Mock
+    private UserIdCache userIdCache;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private ItemAvailabilityIndex availabilityIndex;
+    @Mock
+    private EtagCache etagCache;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -129,13 +150,54 @@ class UserServiceImplTest {
         Long userId = 1L;
         User user = new User(userId, "John", "john@example.com");
 
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Cache cache = mock(Cache.class);
+
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(itemRepository.findIdsByOwnerId(userId)).thenReturn(List.of(2L, 3L));
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
 
         userService.deleteById(1L);
 
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, times(1)).deleteById(userId);
-        verifyNoMoreInteractions(userRepository);
+        verify(userIdCache, times(1)).evict(userId);
+        verify(availabilityIndex, times(1)).removeUser(userId, List.of(2L, 3L));
+        verify(cache, times(1)).evict(Item.class);
+        verify(cache, times(1)).evict(Request.class);
+        verify(cache, times(1)).evictQueryRegions();
+        verifyNoMoreInteractions(userRepository, userIdCache);
+    }
+
+    @Test
+    void deleteById_whenInsideTransaction_thenCascadedEvictedAgainAfterCommit() {
+        long userId = 1L;
+        User user = new User(userId, "John", "john@example.com");
+
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Cache cache = mock(Cache.class);
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(itemRepository.findIdsByOwnerId(userId)).thenReturn(List.of(2L));
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.deleteById(userId);
+
+            verify(cache, times(1)).evict(Item.class);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(cache, times(2)).evict(Item.class);
+        verify(cache, times(2)).evict(Request.class);
+        verify(cache, times(2)).evictQueryRegions();
+        verify(availabilityIndex, times(1)).removeUser(userId, List.of(2L));
     }
 
     @Test
@@ -147,6 +209,7 @@ class UserServiceImplTest {
         assertThrows(NotFoundException.class, () -> userService.deleteById(userId));
         verify(userRepository, times(1)).findById(userId);
         verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(userIdCache, entityManagerFactory, availabilityIndex);
     }
 
     @Test
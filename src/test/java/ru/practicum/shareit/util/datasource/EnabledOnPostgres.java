@@ -0,0 +1,27 @@
+package ru.practicum.shareit.util.datasource;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a test against PostgreSQL instead of H2, for behaviour that only schema-postgresql.sql has.
+ * Skipped unless SHAREIT_TEST_POSTGRES_URL points to a database the test may fill, for example
+ * {@code SHAREIT_TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/shareit_test mvn test}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@EnabledIfEnvironmentVariable(named = "SHAREIT_TEST_POSTGRES_URL", matches = ".+")
+@TestPropertySource(properties = {
+        "spring.datasource.driverClassName=org.postgresql.Driver",
+        "spring.datasource.url=${SHAREIT_TEST_POSTGRES_URL}",
+        "spring.datasource.username=${SHAREIT_TEST_POSTGRES_USER:postgres}",
+        "spring.datasource.password=${SHAREIT_TEST_POSTGRES_PASSWORD:postgres}",
+        "spring.sql.init.platform=postgresql"
+})
+public @interface EnabledOnPostgres {
+}
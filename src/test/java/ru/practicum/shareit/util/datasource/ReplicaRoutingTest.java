@@ -0,0 +1,265 @@
+package ru.practicum.shareit.util.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.CreationRequestDto;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica. Nothing is replicated,
+ * so the rows a request returns show which database it was served from.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit-primary",
+        "shareit.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "shareit.datasource.replica.username=test",
+        "shareit.datasource.replica.password=test",
+        "shareit.datasource.replica.lag-query=SELECT lag FROM replica_lag",
+        "shareit.datasource.replica.lag-check-interval=0s",
+        "shareit.datasource.replica.max-lag=" + ReplicaRoutingTest.MAX_LAG_MILLIS + "ms"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:shareit-replica;DB_CLOSE_DELAY=-1";
+    static final long MAX_LAG_MILLIS = 500;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private JdbcTemplate primary;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ObjectMapper mapper;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "test", "test");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(replicaDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag DOUBLE PRECISION)");
+        replica.update("DELETE FROM replica_lag");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        replica.update("DELETE FROM users");
+        primary.update("DELETE FROM users");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void getAll_whenReplicaUpToDate_thenReadOnlyRequestServedFromReplica() throws Exception {
+        userService.create(new UserDto(null, "John", "john@example.com"));
+        replica.update("INSERT INTO users (id, name, email) VALUES (1000, 'Replica', 'replica@example.com')");
+
+        mvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("replica@example.com")))
+                .andExpect(content().string(not(containsString("john@example.com"))));
+    }
+
+    @Test
+    void getAll_whenReplicaLagsBehind_thenReadOnlyRequestServedFromPrimary() throws Exception {
+        userService.create(new UserDto(null, "John", "john@example.com"));
+        replica.update("UPDATE replica_lag SET lag = 60");
+
+        mvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("john@example.com")));
+    }
+
+    @Test
+    void getAllByUser_whenBookingJustCreated_thenBookerReadsFromPrimary() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "John", "john@example.com"));
+        UserDto booker = userService.create(new UserDto(null, "Danny", "danny@example.com"));
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Hammer")
+                .description("Handy tool")
+                .available(true)
+                .build());
+        replica.update("INSERT INTO users (id, name, email) VALUES (?, 'John', 'john@example.com')", owner.getId());
+        replica.update("INSERT INTO users (id, name, email) VALUES (?, 'Danny', 'danny@example.com')", booker.getId());
+
+        mvc.perform(get("/bookings").header(ReadYourWrites.USER_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        mvc.perform(post("/bookings")
+                        .header(ReadYourWrites.USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new CreationBookingDto(item.getId(),
+                                start.toString(), start.plusHours(1).toString()))))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/bookings").header(ReadYourWrites.USER_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        mvc.perform(get("/bookings/owner").header(ReadYourWrites.USER_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void getAllByUser_whenRequestJustCreated_thenRequestorReadsFromPrimary() throws Exception {
+        UserDto requestor = userService.create(new UserDto(null, "John", "john@example.com"));
+        replica.update("INSERT INTO users (id, name, email) VALUES (?, 'John', 'john@example.com')",
+                requestor.getId());
+
+        mvc.perform(post("/requests")
+                        .header(ReadYourWrites.USER_HEADER, requestor.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new CreationRequestDto("Need a hammer"))))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/requests").header(ReadYourWrites.USER_HEADER, requestor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void getAllByUser_whenListReadFromReplica_thenNotKeptInQueryCache() throws Exception {
+        UserDto requestor = userService.create(new UserDto(null, "John", "john@example.com"));
+        replica.update("INSERT INTO users (id, name, email) VALUES (?, 'John', 'john@example.com')",
+                requestor.getId());
+        requestService.create(requestor.getId(), new CreationRequestDto("Need a hammer"));
+
+        mvc.perform(get("/requests").header(ReadYourWrites.USER_HEADER, requestor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        replica.update("UPDATE replica_lag SET lag = 60");
+
+        mvc.perform(get("/requests").header(ReadYourWrites.USER_HEADER, requestor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void getById_whenUserReadFromReplica_thenNotKeptInSecondLevelCache() throws Exception {
+        replica.update("INSERT INTO users (id, name, email) VALUES (1000, 'Replica', 'replica@example.com')");
+
+        mvc.perform(get("/users/1000"))
+                .andExpect(status().isOk());
+
+        replica.update("UPDATE replica_lag SET lag = 60");
+
+        mvc.perform(get("/users/1000"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getAllByUser_whenUserCheckedOnReplica_thenIdNotRemembered() throws Exception {
+        replica.update("INSERT INTO users (id, name, email) VALUES (1000, 'Replica', 'replica@example.com')");
+
+        mvc.perform(get("/requests").header(ReadYourWrites.USER_HEADER, 1000))
+                .andExpect(status().isOk());
+
+        replica.update("UPDATE replica_lag SET lag = 60");
+
+        mvc.perform(get("/requests").header(ReadYourWrites.USER_HEADER, 1000))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getById_whenRequestReadFromReplica_thenEtagKeptForMaxLagOnly() throws Exception {
+        replica.update("INSERT INTO users (id, name, email) VALUES (1000, 'Replica', 'replica@example.com')");
+        replica.update("INSERT INTO requests (id, description, created, requestor_id) " +
+                "VALUES (2000, 'Need a hammer', CURRENT_TIMESTAMP, 1000)");
+
+        mvc.perform(get("/requests/2000").header(ReadYourWrites.USER_HEADER, 1000))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        assertNotNull(requestService.getEtag(1000, 2000));
+
+        Thread.sleep(MAX_LAG_MILLIS + 100);
+
+        assertNull(requestService.getEtag(1000, 2000));
+    }
+
+    @Test
+    void lagQuery_whenReplicaReplayedAllItReceived_thenNoLagHoweverLongPrimaryIdle() {
+        definePostgresFunctions();
+        String lagQuery = new ReplicaProperties().getLagQuery();
+        PostgresFunctions.receiveLsn = "0/3000148";
+        PostgresFunctions.replayLsn = "0/3000148";
+        PostgresFunctions.replayTimestamp = OffsetDateTime.now().minusHours(1);
+
+        assertEquals(0, replica.queryForObject(lagQuery, Double.class));
+
+        PostgresFunctions.receiveLsn = "0/3000200";
+
+        assertEquals(3600, replica.queryForObject(lagQuery, Double.class), 60);
+
+        PostgresFunctions.receiveLsn = null;
+
+        assertNull(replica.queryForObject(lagQuery, Double.class));
+    }
+
+    private void definePostgresFunctions() {
+        String functions = PostgresFunctions.class.getName();
+        replica.execute("CREATE ALIAS IF NOT EXISTS pg_last_wal_receive_lsn FOR \"" + functions + ".receiveLsn\"");
+        replica.execute("CREATE ALIAS IF NOT EXISTS pg_last_wal_replay_lsn FOR \"" + functions + ".replayLsn\"");
+        replica.execute("CREATE ALIAS IF NOT EXISTS pg_last_xact_replay_timestamp FOR \""
+                + functions + ".replayTimestamp\"");
+    }
+
+    // stand-ins of the PostgreSQL functions, reporting the WAL positions and the last replayed transaction set here
+    public static class PostgresFunctions {
+        private static String receiveLsn;
+        private static String replayLsn;
+        private static OffsetDateTime replayTimestamp;
+
+        public static String receiveLsn() {
+            return receiveLsn;
+        }
+
+        public static String replayLsn() {
+            return replayLsn;
+        }
+
+        public static OffsetDateTime replayTimestamp() {
+            return replayTimestamp;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.util.etag;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.CreationRequestDto;
+import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.metrics.StatementBudgetProperties;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests go through the whole stack without a test transaction, so that writes commit
+ * and evict the cached ETags like they do in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private StatementBudgetProperties budget;
+
+    private UserDto owner;
+    private UserDto booker;
+    private RequestDto request;
+    private ItemDto item;
+
+    @BeforeEach
+    public void addData() {
+        owner = userService.create(new UserDto(null, "John", "john.etag@example.com"));
+        booker = userService.create(new UserDto(null, "Danny", "danny.etag@example.com"));
+        request = requestService.create(booker.getId(), new CreationRequestDto("Need a hammer"));
+        item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Hammer")
+                .description("Handy tool")
+                .available(true)
+                .build());
+    }
+
+    @AfterEach
+    public void deleteData() {
+        userService.deleteById(owner.getId());
+        userService.deleteById(booker.getId());
+    }
+
+    @Test
+    void getById_whenItemNotChanged_thenNotModifiedWithoutStatements() throws Exception {
+        String etag = etagOf("/items/" + item.getId(), booker.getId());
+
+        Integer limit = budget.getLimit("GET", "/items/{id}");
+        budget.getLimits().get("GET").put("/items/{id}", 0);
+        try {
+            mvc.perform(get("/items/{id}", item.getId())
+                            .header("X-Sharer-User-Id", booker.getId())
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+        } finally {
+            budget.getLimits().get("GET").put("/items/{id}", limit);
+        }
+    }
+
+    @Test
+    void getById_whenItemUpdated_thenNewEtag() throws Exception {
+        String etag = etagOf("/items/" + item.getId(), booker.getId());
+
+        itemService.update(owner.getId(), item.getId(), ItemDto.builder().name("Sledgehammer").build());
+
+        String newEtag = mvc.perform(get("/items/{id}", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(newEtag);
+        assertNotEquals(etag, newEtag);
+    }
+
+    @Test
+    void getById_whenOwnerAndItemBooked_thenNewEtag() throws Exception {
+        String etag = etagOf("/items/" + item.getId(), owner.getId());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        bookingService.create(booker.getId(), new CreationBookingDto(item.getId(),
+                start.toString(), start.plusHours(1).toString()));
+
+        mvc.perform(get("/items/{id}", item.getId())
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getRequestById_whenItemAddedForRequest_thenNewEtag() throws Exception {
+        String etag = etagOf("/requests/" + request.getId(), owner.getId());
+
+        mvc.perform(get("/requests/{id}", request.getId())
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        itemService.create(owner.getId(), ItemDto.builder()
+                .name("Hammer")
+                .description("Another one")
+                .available(true)
+                .requestId(request.getId())
+                .build());
+
+        mvc.perform(get("/requests/{id}", request.getId())
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getAllRequests_whenRequestAdded_thenNewEtag() throws Exception {
+        String etag = etagOf("/requests/all", owner.getId());
+
+        mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        requestService.create(booker.getId(), new CreationRequestDto("Need a saw"));
+
+        mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    private String etagOf(String path, long userId) throws Exception {
+        String etag = mvc.perform(get(path).header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.util.etag;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.util.datasource.ReplicaProperties;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtagCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EtagCache etagCache = new EtagCache(new ReplicaProperties(), Duration.ofMinutes(1), meterRegistry);
+
+    @Test
+    void get_whenPut_thenEtagOfVariantReturned() {
+        Etag etag = new Etag().add("item", 1L, 0);
+
+        etagCache.put("items/1", "user=1", etag, null, etagCache.stamp());
+
+        assertEquals(etag.toString(), etagCache.get("items/1", "user=1"));
+        assertNull(etagCache.get("items/1", "user=2"));
+    }
+
+    @Test
+    void etag_whenVersionChanged_thenDifferentStrongEtag() {
+        String etag = new Etag().add("item", 1L, 0).toString();
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, new Etag().add("item", 1L, 0).toString());
+        assertNotEquals(etag, new Etag().add("item", 1L, 1).toString());
+    }
+
+    @Test
+    void put_whenEvictedDuringRead_thenEtagDropped() {
+        long stamp = etagCache.stamp();
+        etagCache.evict("items/2");
+
+        etagCache.put("items/1", "user=1", new Etag().add("item", 1L, 0), null, stamp);
+
+        assertNull(etagCache.get("items/1", "user=1"));
+    }
+
+    @Test
+    void get_whenValidUntilPassed_thenNothingReturned() {
+        etagCache.put("items/1", "user=1", new Etag().add("item", 1L, 0),
+                LocalDateTime.now().minusSeconds(1), etagCache.stamp());
+
+        assertNull(etagCache.get("items/1", "user=1"));
+    }
+
+    @Test
+    void get_whenTtlPassed_thenNothingReturnedEvenWithoutWrite() {
+        EtagCache expiringCache = new EtagCache(new ReplicaProperties(), Duration.ZERO, meterRegistry);
+
+        expiringCache.put("items/1", "user=1", new Etag().add("item", 1L, 0), null, expiringCache.stamp());
+
+        assertNull(expiringCache.get("items/1", "user=1"));
+    }
+
+    @Test
+    void put_whenVariantsOfResourceFull_thenSkippedAndCounted() {
+        for (int user = 1; user <= 101; user++) {
+            etagCache.put("requests/all", "user=" + user, new Etag().add("request", 1L, 0), null, etagCache.stamp());
+        }
+
+        assertNotNull(etagCache.get("requests/all", "user=100"));
+        assertNull(etagCache.get("requests/all", "user=101"));
+        assertEquals(1.0, meterRegistry.get("shareit.etag.cache.skipped").tag("limit", "variants").counter().count());
+    }
+
+    @Test
+    void put_whenVariantsFullOfExpiredTags_thenExpiredMakeRoom() {
+        for (int user = 1; user <= 100; user++) {
+            etagCache.put("requests/all", "user=" + user, new Etag().add("request", 1L, 0),
+                    LocalDateTime.now().minusSeconds(1), etagCache.stamp());
+        }
+
+        etagCache.put("requests/all", "user=101", new Etag().add("request", 1L, 0), null, etagCache.stamp());
+
+        assertNotNull(etagCache.get("requests/all", "user=101"));
+        assertEquals(0.0, meterRegistry.get("shareit.etag.cache.skipped").tag("limit", "variants").counter().count());
+    }
+
+    @Test
+    void evict_whenInsideTransaction_thenEvictedAgainAfterCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            etagCache.evict("items/1");
+            etagCache.put("items/1", "user=1", new Etag().add("item", 1L, 0), null, etagCache.stamp());
+            assertNotNull(etagCache.get("items/1", "user=1"));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(etagCache.get("items/1", "user=1"));
+    }
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.util.fields;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.util.exception.ValidationException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldSetTest {
+    private final FieldSet<Booking> fieldSet = new FieldSet<Booking>("id")
+            .column("id", root -> root.get("id"))
+            .column("start", root -> root.get("start"))
+            .column("item.id", root -> root.get("item").get("id"))
+            .column("item.name", root -> root.get("item").get("name"))
+            .other("comments");
+
+    @Test
+    void select_whenFieldsGiven_thenKeysAndSelectedColumnsInDeclaredOrder() {
+        FieldSet<Booking>.Selection selection = fieldSet.select("item.name, start");
+
+        assertEquals(List.of("id", "start", "item.name"), List.copyOf(selection.getColumns().keySet()));
+        assertFalse(selection.contains("comments"));
+    }
+
+    @Test
+    void select_whenGroupGiven_thenEveryColumnOfGroupSelected() {
+        FieldSet<Booking>.Selection selection = fieldSet.select("item,comments");
+
+        assertEquals(List.of("id", "item.id", "item.name"), List.copyOf(selection.getColumns().keySet()));
+        assertTrue(selection.contains("comments"));
+    }
+
+    @Test
+    void select_whenEmpty_thenOnlyKeysSelected() {
+        assertEquals(List.of("id"), List.copyOf(fieldSet.select("").getNames()));
+    }
+
+    @Test
+    void select_whenFieldUnknown_thenValidationExceptionThrown() {
+        assertThrows(ValidationException.class, () -> fieldSet.select("start,price"));
+        assertThrows(ValidationException.class, () -> fieldSet.select("ite"));
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.util.fields;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.CreationRequestDto;
+import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.metrics.StatementBudgetProperties;
+import ru.practicum.shareit.util.pagination.Cursor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests go through the whole stack, so the statement budget of the test profile
+ * catches an association that is loaded although it was not selected.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SparseFieldsTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private StatementBudgetProperties budget;
+
+    private UserDto owner;
+    private UserDto booker;
+    private RequestDto request;
+    private ItemDto item;
+    private BookingDto booking;
+
+    @BeforeEach
+    public void addData() {
+        owner = userService.create(new UserDto(null, "John", "john.fields@example.com"));
+        booker = userService.create(new UserDto(null, "Danny", "danny.fields@example.com"));
+        request = requestService.create(booker.getId(), new CreationRequestDto("Need a hammer"));
+        item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Hammer")
+                .description("Handy tool")
+                .available(true)
+                .requestId(request.getId())
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        booking = bookingService.create(booker.getId(), new CreationBookingDto(item.getId(),
+                start.toString(), start.plusHours(1).toString()));
+    }
+
+    @AfterEach
+    public void deleteData() {
+        userService.deleteById(owner.getId());
+        userService.deleteById(booker.getId());
+    }
+
+    @Test
+    void getAllFieldsByOwnerId_whenOnlyColumnsSelected_thenOnlyTheyReadByOneStatement() throws Exception {
+        Integer limit = budget.getLimit("GET", "/items");
+        budget.getLimits().get("GET").put("/items", 2);
+        try {
+            mvc.perform(get("/items")
+                            .param("fields", "name")
+                            .header("X-Sharer-User-Id", owner.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].id", is(item.getId()), Long.class))
+                    .andExpect(jsonPath("$[0].name", is("Hammer")))
+                    .andExpect(jsonPath("$[0].description").doesNotExist())
+                    .andExpect(jsonPath("$[0].comments").doesNotExist())
+                    .andExpect(jsonPath("$[0].nextBooking").doesNotExist());
+        } finally {
+            budget.getLimits().get("GET").put("/items", limit);
+        }
+    }
+
+    @Test
+    void getAllFieldsByOwnerId_whenAssociationsSelected_thenTheyAreFilled() throws Exception {
+        mvc.perform(get("/items")
+                        .param("fields", "name,nextBooking,comments")
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nextBooking.id", is(booking.getId()), Long.class))
+                .andExpect(jsonPath("$[0].nextBooking.bookerId", is(booker.getId()), Long.class))
+                .andExpect(jsonPath("$[0].lastBooking").doesNotExist())
+                .andExpect(jsonPath("$[0].comments", hasSize(0)));
+    }
+
+    @Test
+    void getAllFieldsByItemOwner_whenDottedFieldSelected_thenNestedInResponse() throws Exception {
+        mvc.perform(get("/bookings/owner")
+                        .param("fields", "status,item.name")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(booking.getId()), Long.class))
+                .andExpect(jsonPath("$[0].start", is(booking.getStart())))
+                .andExpect(jsonPath("$[0].status", is("WAITING")))
+                .andExpect(jsonPath("$[0].item.name", is("Hammer")))
+                .andExpect(jsonPath("$[0].item.description").doesNotExist())
+                .andExpect(jsonPath("$[0].booker").doesNotExist())
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        Cursor.of(LocalDateTime.parse(booking.getStart()), booking.getId()).encode()));
+    }
+
+    @Test
+    void getAllFields_whenItemsOfRequestsSelected_thenItemsFilled() throws Exception {
+        mvc.perform(get("/requests/all")
+                        .param("fields", "description,items")
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == " + request.getId() + ")].description", contains("Need a hammer")))
+                .andExpect(jsonPath("$[?(@.id == " + request.getId() + ")].items[0].name", contains("Hammer")))
+                .andExpect(jsonPath("$[0].created", notNullValue()))
+                .andExpect(jsonPath("$[0].requestorId").doesNotExist());
+    }
+
+    @Test
+    void getAllFields_whenFieldUnknown_thenBadRequest() throws Exception {
+        mvc.perform(get("/bookings")
+                        .param("fields", "price")
+                        .header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.util.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.CreationBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.exception.StatementBudgetExceededException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests go through the whole stack without a test transaction,
+ * otherwise entities come from the test's persistence context and no statements are counted.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private StatementBudgetProperties budget;
+
+    private UserDto owner;
+    private UserDto booker;
+
+    @BeforeEach
+    public void addData() {
+        owner = userService.create(new UserDto(null, "John", "john.metrics@example.com"));
+        booker = userService.create(new UserDto(null, "Danny", "danny.metrics@example.com"));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 5; i++) {
+            ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                    .name("Hammer")
+                    .description("Handy tool")
+                    .available(true)
+                    .build());
+            bookingService.create(booker.getId(), new CreationBookingDto(item.getId(),
+                    start.plusDays(i).toString(), start.plusDays(i).plusHours(1).toString()));
+        }
+    }
+
+    @AfterEach
+    public void deleteData() {
+        userService.deleteById(owner.getId());
+        userService.deleteById(booker.getId());
+    }
+
+    @Test
+    void getAllByOwnerId_whenRequested_thenRequestTimedAndStatementsCounted() throws Exception {
+        long requestsBefore = requestCount();
+
+        mvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(requestsBefore + 1, requestCount());
+        DistributionSummary statements = meterRegistry.get(StatementCountFilter.METRIC_NAME)
+                .tag("method", "GET")
+                .tag("uri", "/items")
+                .summary();
+        assertTrue(statements.max() > 0);
+        assertTrue(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "ItemRepository")
+                .tag("method", "findAllByOwner")
+                .timer().count() > 0);
+    }
+
+    @Test
+    void prometheus_whenScraped_thenStatementCountsExported() throws Exception {
+        mvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("hibernate_request_statements_count{method=\"GET\"")));
+    }
+
+    @Test
+    void getAllByUser_whenSeveralBookingsListed_thenWithinStatementBudget() throws Exception {
+        mvc.perform(get("/bookings").header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isOk());
+        mvc.perform(get("/bookings/owner").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(5, budget.getLimit("GET", "/bookings"));
+        assertEquals(5, budget.getLimit("GET", "/bookings/owner"));
+    }
+
+    @Test
+    void getAllByOwnerId_whenStatementBudgetExceeded_thenExceptionThrown() {
+        Integer limit = budget.getLimit("GET", "/items");
+        budget.getLimits().get("GET").put("/items", 0);
+        try {
+            assertThrows(StatementBudgetExceededException.class, () ->
+                    mvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId())));
+        } finally {
+            budget.getLimits().get("GET").put("/items", limit);
+        }
+    }
+
+    private long requestCount() {
+        Timer timer = meterRegistry.find("http.server.requests")
+                .tag("uri", "/items")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.util.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.util.exception.ValidationException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTest {
+
+    @Test
+    void decode_whenEncodedWithTimestamp_thenSameCursorReturned() {
+        Cursor cursor = Cursor.of(LocalDateTime.of(2023, 7, 5, 15, 0, 0, 123000), 42L);
+
+        assertEquals(cursor, Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decode_whenEncodedWithIdOnly_thenSameCursorReturned() {
+        Cursor cursor = Cursor.of(42L);
+
+        Cursor decoded = Cursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertNull(decoded.getTimestamp());
+        assertThrows(ValidationException.class, decoded::getTimestampOrThrow);
+    }
+
+    @Test
+    void decode_whenTokenMalformed_thenValidationExceptionThrown() {
+        assertThrows(ValidationException.class, () -> Cursor.decode("not a cursor"));
+        assertThrows(ValidationException.class, () -> Cursor.decode("bm90LWEtZGF0ZV80Mg"));
+    }
+}